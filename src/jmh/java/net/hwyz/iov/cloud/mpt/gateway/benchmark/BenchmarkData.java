@@ -0,0 +1,104 @@
+package net.hwyz.iov.cloud.mpt.gateway.benchmark;
+
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试数据
+ *
+ * @author hwyz_leo
+ */
+final class BenchmarkData {
+    private static final String[] MODULES = {"system", "monitor", "tool", "vehicle", "device", "ota", "tsp", "order"};
+
+    private static final String[] ACTIONS = {"list", "detail", "export", "query", "page"};
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 生成路径规则，字面量、单段通配与多段通配按管理后台常见比例混合
+     *
+     * @param count 规则数量
+     */
+    static List<String> pathPatterns(int count) {
+        List<String> patterns = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String module = MODULES[i % MODULES.length] + i;
+            String action = ACTIONS[i % ACTIONS.length];
+            switch (i % 4) {
+                case 0, 1 -> patterns.add("/" + module + "/" + action);
+                case 2 -> patterns.add("/" + module + "/*/" + action);
+                default -> patterns.add("/" + module + "/**");
+            }
+        }
+        return patterns;
+    }
+
+    /**
+     * 生成请求路径，约一半命中规则
+     *
+     * @param patternCount 规则数量
+     * @param count        路径数量，需为2的幂
+     */
+    static String[] requestPaths(int patternCount, int count) {
+        Random random = new Random(42);
+        String[] paths = new String[count];
+        for (int i = 0; i < count; i++) {
+            int n = random.nextInt(patternCount);
+            String module = MODULES[n % MODULES.length] + n;
+            String action = ACTIONS[n % ACTIONS.length];
+            if (random.nextBoolean()) {
+                paths[i] = switch (n % 4) {
+                    case 0, 1 -> "/" + module + "/" + action;
+                    case 2 -> "/" + module + "/" + random.nextInt(100000) + "/" + action;
+                    default -> "/" + module + "/a/b/" + action;
+                };
+            } else {
+                paths[i] = "/" + module + "/miss/" + random.nextInt(100000);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * 生成JSON请求体
+     *
+     * @param size  目标字节数
+     * @param dirty 是否在部分字段中包含需要转义的脚本
+     */
+    static byte[] jsonBody(int size, boolean dirty) {
+        StringBuilder builder = new StringBuilder(size + 256).append("{\"records\":[");
+        int i = 0;
+        while (builder.length() < size) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            String remark = dirty && i % 16 == 0 ? "<script>alert(" + i + ")</script>" : "车辆状态正常，里程" + i * 13 + "公里";
+            builder.append("{\"id\":").append(i)
+                    .append(",\"vin\":\"LHWYZ00000").append(String.format("%07d", i)).append('"')
+                    .append(",\"remark\":\"").append(remark).append('"')
+                    .append(",\"online\":").append(i % 3 == 0)
+                    .append('}');
+            i++;
+        }
+        return builder.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 注入私有字段，代替Spring容器装配
+     */
+    static void inject(Object target, String fieldName, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException(target.getClass().getName() + "." + fieldName);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
@@ -0,0 +1,73 @@
+package net.hwyz.iov.cloud.mpt.gateway.benchmark;
+
+import net.hwyz.iov.cloud.mpt.gateway.filter.BlackListUrlFilter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 黑名单匹配：逐条正则与合并正则加判定缓存对比
+ * <p>
+ * hot为少量重复路径（判定缓存命中），cold路径数远超判定缓存容量
+ *
+ * @author hwyz_leo
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BlacklistBenchmark {
+    @Param({"10", "100"})
+    private int patternCount;
+
+    @Param({"hot", "cold"})
+    private String traffic;
+
+    private Pattern[] perEntryPatterns;
+
+    private BlackListUrlFilter.Config config;
+
+    private String[] paths;
+
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        List<String> blacklist = BenchmarkData.pathPatterns(patternCount).stream()
+                .map(pattern -> pattern.replace("/*/", "/**/"))
+                .toList();
+        perEntryPatterns = blacklist.stream()
+                .map(url -> Pattern.compile(url.replaceAll("\\*\\*", "(.*?)"), Pattern.CASE_INSENSITIVE))
+                .toArray(Pattern[]::new);
+        config = new BlackListUrlFilter.Config();
+        config.setBlacklistUrl(blacklist);
+        paths = BenchmarkData.requestPaths(patternCount, "hot".equals(traffic) ? 64 : 8192);
+    }
+
+    private String nextPath() {
+        return paths[cursor++ & (paths.length - 1)];
+    }
+
+    /**
+     * 原实现：逐条正则查找
+     */
+    @Benchmark
+    public boolean perEntryRegex() {
+        String url = nextPath();
+        for (Pattern pattern : perEntryPatterns) {
+            if (pattern.matcher(url).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean matchBlacklist() {
+        return config.matchBlacklist(nextPath());
+    }
+}
@@ -0,0 +1,58 @@
+package net.hwyz.iov.cloud.mpt.gateway.benchmark;
+
+import com.google.code.kaptcha.Producer;
+import net.hwyz.iov.cloud.mpt.gateway.captcha.Captcha;
+import net.hwyz.iov.cloud.mpt.gateway.captcha.CaptchaRenderer;
+import net.hwyz.iov.cloud.mpt.gateway.config.CaptchaConfig;
+import net.hwyz.iov.cloud.mpt.gateway.config.properties.CaptchaProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 验证码生成：文本生成与文本加图片编码
+ *
+ * @author hwyz_leo
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class CaptchaBenchmark {
+    @Param({"math", "char"})
+    private String type;
+
+    @Param({"jpg", "png"})
+    private String imageFormat;
+
+    private Producer producer;
+
+    private CaptchaRenderer renderer;
+
+    @Setup
+    public void setup() {
+        CaptchaConfig captchaConfig = new CaptchaConfig();
+        Producer captchaProducer = captchaConfig.getKaptchaBean();
+        Producer captchaProducerMath = captchaConfig.getKaptchaBeanMath();
+        producer = "math".equals(type) ? captchaProducerMath : captchaProducer;
+        CaptchaProperties captchaProperties = new CaptchaProperties();
+        captchaProperties.setImageFormat(imageFormat);
+        renderer = new CaptchaRenderer();
+        BenchmarkData.inject(renderer, "captchaProducer", captchaProducer);
+        BenchmarkData.inject(renderer, "captchaProducerMath", captchaProducerMath);
+        BenchmarkData.inject(renderer, "captchaProperties", captchaProperties);
+    }
+
+    @Benchmark
+    public String createText() {
+        return producer.createText();
+    }
+
+    @Benchmark
+    public Captcha render() throws IOException {
+        return renderer.render(type);
+    }
+}
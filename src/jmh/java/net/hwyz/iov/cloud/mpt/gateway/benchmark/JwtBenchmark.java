@@ -0,0 +1,68 @@
+package net.hwyz.iov.cloud.mpt.gateway.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.hwyz.iov.cloud.framework.common.constant.MptSecurityConstants;
+import net.hwyz.iov.cloud.framework.common.util.JwtUtil;
+import net.hwyz.iov.cloud.mpt.gateway.cache.TokenClaimsCache;
+import net.hwyz.iov.cloud.mpt.gateway.config.properties.TokenCacheProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌解析：每次验签与TokenClaimsCache对比
+ *
+ * @author hwyz_leo
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+    /**
+     * 活跃用户数
+     */
+    private static final int TOKEN_COUNT = 1024;
+
+    private String[] tokens;
+
+    private TokenClaimsCache tokenClaimsCache;
+
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        tokens = new String[TOKEN_COUNT];
+        for (int i = 0; i < TOKEN_COUNT; i++) {
+            Map<String, Object> claims = new HashMap<>();
+            claims.put(MptSecurityConstants.USER_KEY, UUID.randomUUID().toString());
+            claims.put(MptSecurityConstants.DETAILS_USER_ID, String.valueOf(i));
+            claims.put(MptSecurityConstants.DETAILS_USERNAME, "user" + i);
+            tokens[i] = JwtUtil.createToken(claims);
+        }
+        tokenClaimsCache = new TokenClaimsCache();
+        BenchmarkData.inject(tokenClaimsCache, "tokenCacheProperties", new TokenCacheProperties());
+        BenchmarkData.inject(tokenClaimsCache, "meterRegistry", new SimpleMeterRegistry());
+        tokenClaimsCache.init();
+    }
+
+    private String nextToken() {
+        return tokens[cursor++ & (TOKEN_COUNT - 1)];
+    }
+
+    @Benchmark
+    public Claims parseToken() {
+        return JwtUtil.parseToken(nextToken());
+    }
+
+    @Benchmark
+    public Claims tokenClaimsCache() {
+        return tokenClaimsCache.parse(nextToken());
+    }
+}
@@ -0,0 +1,53 @@
+package net.hwyz.iov.cloud.mpt.gateway.benchmark;
+
+import net.hwyz.iov.cloud.mpt.gateway.filter.AuthFilter;
+import net.hwyz.iov.cloud.mpt.gateway.util.PathPatternIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 白名单路径匹配：逐条AntPathMatcher与PathPatternIndex对比
+ *
+ * @author hwyz_leo
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PathMatchBenchmark {
+    @Param({"10", "100", "1000"})
+    private int patternCount;
+
+    private List<String> patterns;
+
+    private PathPatternIndex index;
+
+    private String[] paths;
+
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        patterns = BenchmarkData.pathPatterns(patternCount);
+        index = PathPatternIndex.compile(patterns);
+        paths = BenchmarkData.requestPaths(patternCount, 256);
+    }
+
+    private String nextPath() {
+        return paths[cursor++ & (paths.length - 1)];
+    }
+
+    @Benchmark
+    public boolean antPathMatcher() {
+        return AuthFilter.matches(nextPath(), patterns);
+    }
+
+    @Benchmark
+    public boolean pathPatternIndex() {
+        return index.matches(nextPath());
+    }
+}
@@ -0,0 +1,69 @@
+package net.hwyz.iov.cloud.mpt.gateway.benchmark;
+
+import net.hwyz.iov.cloud.framework.common.util.EscapeUtil;
+import net.hwyz.iov.cloud.mpt.gateway.util.JsonXssSanitizer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XSS请求体清洗：整体解码清洗与流式清洗、预扫描对比
+ *
+ * @author hwyz_leo
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XssBenchmark {
+    /**
+     * 网络读取的数据块大小
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final DefaultDataBufferFactory BUFFER_FACTORY = DefaultDataBufferFactory.sharedInstance;
+
+    @Param({"1024", "65536", "1048576"})
+    private int bodySize;
+
+    @Param({"clean", "dirty"})
+    private String content;
+
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        body = BenchmarkData.jsonBody(bodySize, "dirty".equals(content));
+    }
+
+    /**
+     * 原实现：整体解码为字符串清洗后重新编码
+     */
+    @Benchmark
+    public byte[] stringClean() {
+        String bodyStr = new String(body, StandardCharsets.UTF_8);
+        return EscapeUtil.clean(bodyStr).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public boolean needsSanitize() {
+        return JsonXssSanitizer.needsSanitize(BUFFER_FACTORY.wrap(body));
+    }
+
+    @Benchmark
+    public void streamingSanitize(Blackhole blackhole) {
+        JsonXssSanitizer sanitizer = new JsonXssSanitizer(BUFFER_FACTORY);
+        for (int offset = 0; offset < body.length; offset += CHUNK_SIZE) {
+            DataBuffer chunk = BUFFER_FACTORY.wrap(ByteBuffer.wrap(body, offset, Math.min(CHUNK_SIZE, body.length - offset)));
+            blackhole.consume(sanitizer.sanitize(chunk));
+        }
+        blackhole.consume(sanitizer.finish());
+    }
+}
@@ -0,0 +1,56 @@
+package net.hwyz.iov.cloud.mpt.gateway.loadtest;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * 回显上游服务，原样返回请求体，无请求体时返回固定JSON
+ *
+ * @author hwyz_leo
+ */
+public class EchoUpstream implements AutoCloseable {
+    /**
+     * 线程名前缀，统计网关内存分配时排除
+     */
+    public static final String THREAD_PREFIX = "loadtest-upstream";
+
+    private static final String EMPTY_RESULT = "{\"code\":200,\"msg\":\"操作成功\"}";
+
+    private final LoopResources loops = LoopResources.create(THREAD_PREFIX, 2, true);
+
+    private DisposableServer server;
+
+    /**
+     * 启动，监听随机端口
+     *
+     * @return 监听端口
+     */
+    public int start() {
+        server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .runOn(loops)
+                .handle((request, response) -> {
+                    String contentType = request.requestHeaders().get(HttpHeaderNames.CONTENT_TYPE, "application/json");
+                    response.header(HttpHeaderNames.CONTENT_TYPE, contentType);
+                    if (request.requestHeaders().contains(HttpHeaderNames.CONTENT_LENGTH)
+                            || request.requestHeaders().contains(HttpHeaderNames.TRANSFER_ENCODING)) {
+                        return response.send(request.receive().retain());
+                    }
+                    return response.sendString(Mono.just(EMPTY_RESULT));
+                })
+                .bindNow();
+        return server.port();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.disposeNow();
+        }
+        loops.dispose();
+    }
+}
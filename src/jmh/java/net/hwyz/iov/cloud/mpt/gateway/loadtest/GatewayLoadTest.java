@@ -0,0 +1,323 @@
+package net.hwyz.iov.cloud.mpt.gateway.loadtest;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import net.hwyz.iov.cloud.framework.common.constant.CacheConstants;
+import net.hwyz.iov.cloud.framework.common.constant.MptSecurityConstants;
+import net.hwyz.iov.cloud.framework.common.constant.TokenConstants;
+import net.hwyz.iov.cloud.framework.common.util.JwtUtil;
+import net.hwyz.iov.cloud.mpt.gateway.GatewayApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * 网关压测
+ * <p>
+ * 关闭Nacos与Sentinel启动GatewayApplication，Redis使用内存替身，上游为本地回显服务，
+ * 按固定速率（开环）发送鉴权请求、验证码登录请求与大JSON请求，输出吞吐、延迟分位与网关线程每请求内存分配。
+ * 参数通过系统属性配置：loadtest.duration、loadtest.warmup（秒），loadtest.auth-rate、loadtest.login-rate、
+ * loadtest.upload-rate（每秒请求数），loadtest.upload-size（字节）
+ *
+ * @author hwyz_leo
+ */
+public class GatewayLoadTest {
+    /**
+     * 客户端线程名前缀，统计网关内存分配时排除
+     */
+    private static final String CLIENT_THREAD_PREFIX = "loadtest-client";
+
+    /**
+     * 发送节拍
+     */
+    private static final Duration TICK = Duration.ofMillis(10);
+
+    /**
+     * 延迟统计上限（微秒）
+     */
+    private static final long MAX_LATENCY = TimeUnit.SECONDS.toMicros(60);
+
+    /**
+     * 模拟登录用户数
+     */
+    private static final int USER_COUNT = 200;
+
+    public static void main(String[] args) throws Exception {
+        long duration = Long.getLong("loadtest.duration", 60);
+        long warmup = Long.getLong("loadtest.warmup", 15);
+        try (RedisStub redis = new RedisStub(); EchoUpstream upstream = new EchoUpstream()) {
+            int redisPort = redis.start();
+            int upstreamPort = upstream.start();
+            configure(redisPort, upstreamPort);
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(GatewayApplication.class).run(args);
+            int gatewayPort = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            LoopResources loops = LoopResources.create(CLIENT_THREAD_PREFIX, 2, true);
+            HttpClient client = HttpClient.create(ConnectionProvider.builder(CLIENT_THREAD_PREFIX)
+                            .maxConnections(1024)
+                            .pendingAcquireMaxCount(-1)
+                            .build())
+                    .runOn(loops)
+                    .baseUrl("http://127.0.0.1:" + gatewayPort);
+            List<String> tokens = createSessions(redis);
+            byte[] uploadBody = jsonBody(Integer.getInteger("loadtest.upload-size", 256 * 1024));
+
+            List<Scenario> scenarios = List.of(
+                    new Scenario("auth", Integer.getInteger("loadtest.auth-rate", 1000),
+                            () -> authRequest(client, tokens)),
+                    new Scenario("login", Integer.getInteger("loadtest.login-rate", 20),
+                            () -> loginRequest(client, redis)),
+                    new Scenario("upload", Integer.getInteger("loadtest.upload-rate", 50),
+                            () -> uploadRequest(client, tokens, uploadBody)));
+
+            System.out.printf("预热 %d 秒%n", warmup);
+            run(scenarios, warmup);
+            scenarios.forEach(Scenario::reset);
+
+            System.out.printf("压测 %d 秒%n", duration);
+            Map<Long, Long> before = gatewayAllocations();
+            long start = System.nanoTime();
+            run(scenarios, duration);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            long allocated = allocatedSince(before);
+
+            report(scenarios, elapsed, allocated);
+            context.close();
+            loops.dispose();
+        }
+    }
+
+    /**
+     * 关闭注册中心、配置中心与限流控制台，指向内存Redis与回显上游
+     */
+    private static void configure(int redisPort, int upstreamPort) {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("NACOS_URL", "127.0.0.1:8848");
+        properties.put("server.port", "0");
+        properties.put("spring.cloud.nacos.discovery.enabled", "false");
+        properties.put("spring.cloud.nacos.config.enabled", "false");
+        properties.put("spring.cloud.nacos.config.import-check.enabled", "false");
+        properties.put("spring.cloud.service-registry.auto-registration.enabled", "false");
+        properties.put("spring.cloud.sentinel.enabled", "false");
+        properties.put("spring.data.redis.host", "127.0.0.1");
+        properties.put("spring.data.redis.port", String.valueOf(redisPort));
+        properties.put("security.captcha.enabled", "true");
+        properties.put("security.captcha.type", "math");
+        properties.put("security.xss.enabled", "true");
+        properties.put("security.ignore.whites[0]", "/auth/login");
+        properties.put("security.ignore.whites[1]", "/code");
+        String uri = "http://127.0.0.1:" + upstreamPort;
+        properties.put("spring.cloud.gateway.routes[0].id", "auth");
+        properties.put("spring.cloud.gateway.routes[0].uri", uri);
+        properties.put("spring.cloud.gateway.routes[0].predicates[0]", "Path=/auth/**");
+        properties.put("spring.cloud.gateway.routes[0].filters[0]", "ValidateCodeFilter");
+        properties.put("spring.cloud.gateway.routes[0].filters[1]", "CacheRequestFilter");
+        properties.put("spring.cloud.gateway.routes[1].id", "system");
+        properties.put("spring.cloud.gateway.routes[1].uri", uri);
+        properties.put("spring.cloud.gateway.routes[1].predicates[0]", "Path=/system/**");
+        properties.put("spring.cloud.gateway.routes[1].filters[0]", "CacheRequestFilter");
+        properties.forEach(System::setProperty);
+    }
+
+    /**
+     * 签发令牌并在Redis中登记登录会话
+     */
+    private static List<String> createSessions(RedisStub redis) {
+        return IntStream.range(0, USER_COUNT).mapToObj(i -> {
+            String userKey = UUID.randomUUID().toString();
+            Map<String, Object> claims = new HashMap<>();
+            claims.put(MptSecurityConstants.USER_KEY, userKey);
+            claims.put(MptSecurityConstants.DETAILS_USER_ID, String.valueOf(i + 1));
+            claims.put(MptSecurityConstants.DETAILS_USERNAME, "loadtest" + i);
+            redis.set(CacheConstants.LOGIN_TOKEN_KEY + userKey, "{}");
+            return TokenConstants.PREFIX + JwtUtil.createToken(claims);
+        }).toList();
+    }
+
+    private static Mono<Integer> authRequest(HttpClient client, List<String> tokens) {
+        return client.headers(headers -> headers.set(HttpHeaderNames.AUTHORIZATION, randomToken(tokens)))
+                .get()
+                .uri("/system/user/list?pageNum=1&pageSize=10")
+                .responseSingle((response, body) -> body.then(Mono.just(response.status().code())));
+    }
+
+    private static Mono<Integer> loginRequest(HttpClient client, RedisStub redis) {
+        return client.headers(headers -> headers.set(HttpHeaderNames.ACCEPT, "text/plain"))
+                .get()
+                .uri("/code")
+                .responseSingle((response, body) -> body.asString())
+                .flatMap(captcha -> {
+                    String uuid = JSON.parseObject(captcha).getString("uuid");
+                    JSONObject login = new JSONObject();
+                    login.put("username", "admin");
+                    login.put("password", "admin123");
+                    login.put("code", redis.get(CacheConstants.CAPTCHA_CODE_KEY + uuid));
+                    login.put("uuid", uuid);
+                    return client.headers(headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, "application/json"))
+                            .post()
+                            .uri("/auth/login")
+                            .send(ByteBufFlux.fromString(Mono.just(login.toJSONString())))
+                            .responseSingle((response, body) -> body.then(Mono.just(response.status().code())));
+                });
+    }
+
+    private static Mono<Integer> uploadRequest(HttpClient client, List<String> tokens, byte[] uploadBody) {
+        return client.headers(headers -> headers.set(HttpHeaderNames.AUTHORIZATION, randomToken(tokens))
+                        .set(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                        .set(HttpHeaderNames.CONTENT_LENGTH, uploadBody.length))
+                .post()
+                .uri("/system/vehicle/import")
+                .send((request, outbound) -> outbound.sendByteArray(Mono.just(uploadBody)))
+                .responseSingle((response, body) -> body.then(Mono.just(response.status().code())));
+    }
+
+    private static String randomToken(List<String> tokens) {
+        return tokens.get(ThreadLocalRandom.current().nextInt(tokens.size()));
+    }
+
+    /**
+     * 所有场景并行按各自速率发送，持续指定秒数
+     */
+    private static void run(List<Scenario> scenarios, long seconds) {
+        Flux.fromIterable(scenarios)
+                .flatMap(scenario -> scenario.drive(seconds))
+                .blockLast();
+    }
+
+    private static void report(List<Scenario> scenarios, double elapsed, long allocated) {
+        long total = 0;
+        System.out.printf("%-8s %10s %8s %10s %10s %10s %10s%n", "场景", "请求数", "失败", "吞吐/s", "p50(ms)", "p99(ms)", "p999(ms)");
+        for (Scenario scenario : scenarios) {
+            Histogram histogram = scenario.latency;
+            long count = histogram.getTotalCount();
+            total += count;
+            System.out.printf("%-8s %10d %8d %10.1f %10.3f %10.3f %10.3f%n", scenario.name, count, scenario.errors.sum(),
+                    count / elapsed, millis(histogram, 50), millis(histogram, 99), millis(histogram, 99.9));
+        }
+        System.out.printf("网关线程内存分配：%.1f KB/请求%n", total == 0 ? 0 : allocated / 1024.0 / total);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * 网关线程（排除压测客户端、上游与Redis替身）已分配的字节数
+     */
+    private static Map<Long, Long> gatewayAllocations() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Map<Long, Long> allocations = new HashMap<>();
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info == null || isHarnessThread(info.getThreadName())) {
+                continue;
+            }
+            long bytes = threads.getThreadAllocatedBytes(info.getThreadId());
+            if (bytes >= 0) {
+                allocations.put(info.getThreadId(), bytes);
+            }
+        }
+        return allocations;
+    }
+
+    private static long allocatedSince(Map<Long, Long> before) {
+        long allocated = 0;
+        for (Map.Entry<Long, Long> entry : gatewayAllocations().entrySet()) {
+            allocated += entry.getValue() - before.getOrDefault(entry.getKey(), 0L);
+        }
+        return allocated;
+    }
+
+    private static boolean isHarnessThread(String name) {
+        return name.startsWith(CLIENT_THREAD_PREFIX) || name.startsWith(EchoUpstream.THREAD_PREFIX)
+                || name.startsWith(RedisStub.THREAD_PREFIX) || name.startsWith("parallel-") || name.equals("main");
+    }
+
+    private static byte[] jsonBody(int size) {
+        StringBuilder builder = new StringBuilder(size + 128).append("{\"records\":[");
+        for (int i = 0; builder.length() < size; i++) {
+            builder.append(i == 0 ? "" : ",")
+                    .append("{\"id\":").append(i)
+                    .append(",\"vin\":\"LHWYZ").append(String.format("%012d", i))
+                    .append("\",\"remark\":\"车辆导入，批次").append(i / 100).append("\"}");
+        }
+        return builder.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 压测场景
+     */
+    private static class Scenario {
+        private final String name;
+
+        private final int rate;
+
+        private final Supplier<Mono<Integer>> request;
+
+        private final Histogram latency = new ConcurrentHistogram(MAX_LATENCY, 3);
+
+        private final LongAdder errors = new LongAdder();
+
+        private Scenario(String name, int rate, Supplier<Mono<Integer>> request) {
+            this.name = name;
+            this.rate = rate;
+            this.request = request;
+        }
+
+        /**
+         * 开环发送：按节拍发出请求，不等待前一个请求完成，避免协调遗漏掩盖排队延迟
+         */
+        private Flux<Integer> drive(long seconds) {
+            if (rate <= 0) {
+                return Flux.empty();
+            }
+            long ticksPerSecond = Duration.ofSeconds(1).dividedBy(TICK);
+            return Flux.interval(TICK)
+                    .take(seconds * ticksPerSecond)
+                    .concatMapIterable(tick -> Collections.nCopies(
+                            (int) ((tick + 1) * rate / ticksPerSecond - tick * rate / ticksPerSecond), tick))
+                    .flatMap(tick -> {
+                        long start = System.nanoTime();
+                        return request.get()
+                                .doOnNext(status -> {
+                                    latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start), MAX_LATENCY));
+                                    if (status >= 300) {
+                                        errors.increment();
+                                    }
+                                })
+                                .onErrorResume(e -> {
+                                    errors.increment();
+                                    return Mono.empty();
+                                });
+                    }, Integer.MAX_VALUE);
+        }
+
+        private void reset() {
+            latency.reset();
+            errors.reset();
+        }
+    }
+}
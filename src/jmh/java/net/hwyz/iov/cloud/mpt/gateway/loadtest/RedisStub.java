@@ -0,0 +1,180 @@
+package net.hwyz.iov.cloud.mpt.gateway.loadtest;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存Redis替身
+ * <p>
+ * 只实现网关用到的RESP2命令：字符串读写、EXISTS、GETDEL与订阅确认，过期时间忽略，
+ * HELLO返回错误使客户端回退到RESP2
+ *
+ * @author hwyz_leo
+ */
+public class RedisStub implements AutoCloseable {
+    /**
+     * 线程名前缀，统计网关内存分配时排除
+     */
+    public static final String THREAD_PREFIX = "loadtest-redis";
+
+    private final Map<String, String> store = new ConcurrentHashMap<>();
+
+    private final EventLoopGroup group = new NioEventLoopGroup(1, new DefaultThreadFactory(THREAD_PREFIX, true));
+
+    private Channel channel;
+
+    /**
+     * 启动，监听随机端口
+     *
+     * @return 监听端口
+     */
+    public int start() throws InterruptedException {
+        channel = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new CommandDecoder(), new CommandHandler());
+                    }
+                })
+                .bind("127.0.0.1", 0).sync().channel();
+        return ((InetSocketAddress) channel.localAddress()).getPort();
+    }
+
+    public String get(String key) {
+        return store.get(key);
+    }
+
+    public void set(String key, String value) {
+        store.put(key, value);
+    }
+
+    @Override
+    public void close() {
+        if (channel != null) {
+            channel.close().syncUninterruptibly();
+        }
+        group.shutdownGracefully();
+    }
+
+    /**
+     * 解析客户端发送的多条批量字符串数组
+     */
+    private static class CommandDecoder extends ByteToMessageDecoder {
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            while (in.isReadable()) {
+                in.markReaderIndex();
+                List<String> command = readCommand(in);
+                if (command == null) {
+                    in.resetReaderIndex();
+                    return;
+                }
+                out.add(command);
+            }
+        }
+
+        private List<String> readCommand(ByteBuf in) {
+            String header = readLine(in);
+            if (header == null) {
+                return null;
+            }
+            if (header.charAt(0) != '*') {
+                // 内联命令
+                return List.of(header.trim().split("\\s+"));
+            }
+            int count = Integer.parseInt(header.substring(1));
+            List<String> command = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String length = readLine(in);
+                if (length == null) {
+                    return null;
+                }
+                int size = Integer.parseInt(length.substring(1));
+                if (in.readableBytes() < size + 2) {
+                    return null;
+                }
+                command.add(in.readCharSequence(size, StandardCharsets.UTF_8).toString());
+                in.skipBytes(2);
+            }
+            return command;
+        }
+
+        private String readLine(ByteBuf in) {
+            int end = in.indexOf(in.readerIndex(), in.writerIndex(), (byte) '\n');
+            if (end < 0) {
+                return null;
+            }
+            String line = in.readCharSequence(end - in.readerIndex() - 1, StandardCharsets.UTF_8).toString();
+            in.skipBytes(2);
+            return line;
+        }
+    }
+
+    private class CommandHandler extends SimpleChannelInboundHandler<List<String>> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, List<String> command) {
+            String name = command.get(0).toUpperCase(Locale.ROOT);
+            StringBuilder reply = new StringBuilder();
+            switch (name) {
+                case "PING" -> reply.append("+PONG\r\n");
+                case "AUTH", "SELECT", "CLIENT", "QUIT" -> reply.append("+OK\r\n");
+                case "GET" -> bulk(reply, store.get(command.get(1)));
+                case "GETDEL" -> bulk(reply, store.remove(command.get(1)));
+                case "SET" -> {
+                    store.put(command.get(1), command.get(2));
+                    reply.append("+OK\r\n");
+                }
+                case "SETEX", "PSETEX" -> {
+                    store.put(command.get(1), command.get(3));
+                    reply.append("+OK\r\n");
+                }
+                case "EXISTS" -> integer(reply, command.subList(1, command.size()).stream().filter(store::containsKey).count());
+                case "DEL" -> integer(reply, command.subList(1, command.size()).stream().filter(key -> store.remove(key) != null).count());
+                case "EXPIRE", "PEXPIRE" -> integer(reply, store.containsKey(command.get(1)) ? 1 : 0);
+                case "SUBSCRIBE", "PSUBSCRIBE" -> {
+                    for (int i = 1; i < command.size(); i++) {
+                        reply.append("*3\r\n");
+                        bulk(reply, name.toLowerCase(Locale.ROOT));
+                        bulk(reply, command.get(i));
+                        integer(reply, i);
+                    }
+                }
+                default -> reply.append("-ERR unknown command '").append(command.get(0)).append("'\r\n");
+            }
+            ctx.writeAndFlush(ctx.alloc().buffer().writeBytes(reply.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+
+        private void bulk(StringBuilder reply, String value) {
+            if (value == null) {
+                reply.append("$-1\r\n");
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            reply.append('$').append(bytes.length).append("\r\n").append(value).append("\r\n");
+        }
+
+        private void integer(StringBuilder reply, long value) {
+            reply.append(':').append(value).append("\r\n");
+        }
+    }
+}
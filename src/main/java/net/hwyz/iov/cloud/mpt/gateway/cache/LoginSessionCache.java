@@ -0,0 +1,117 @@
+package net.hwyz.iov.cloud.mpt.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import net.hwyz.iov.cloud.framework.common.constant.CacheConstants;
+import net.hwyz.iov.cloud.mpt.gateway.config.properties.SessionCacheProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录会话本地缓存
+ * <p>
+ * 仅缓存已登录的会话，会话注销或被踢出时通过Redis键空间通知（需开启notify-keyspace-events Eg$x）
+ * 或失效频道广播到所有网关节点。配置刷新后按新的最大会话数与有效期调整现有缓存
+ *
+ * @author hwyz_leo
+ */
+@Component
+public class LoginSessionCache implements MessageListener {
+    /**
+     * 会话失效广播频道，消息内容为userkey
+     */
+    public static final String INVALIDATE_CHANNEL = "mpt-gateway:session:invalidate";
+
+    private static final Mono<Boolean> LOGIN = Mono.just(Boolean.TRUE);
+
+    @Autowired
+    private ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+
+    @Autowired
+    private SessionCacheProperties sessionCacheProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, Boolean> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(sessionCacheProperties.getMaximumSize())
+                .expireAfterWrite(sessionCacheProperties.getExpireSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.session");
+    }
+
+    /**
+     * 配置刷新后调整缓存容量与有效期，已缓存的会话保留
+     */
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefresh() {
+        cache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(sessionCacheProperties.getMaximumSize()));
+        cache.policy().expireAfterWrite().ifPresent(expiration ->
+                expiration.setExpiresAfter(Duration.ofSeconds(sessionCacheProperties.getExpireSeconds())));
+    }
+
+    /**
+     * 会话是否处于登录状态
+     *
+     * @param userKey 用户标识
+     */
+    public Mono<Boolean> isLogin(String userKey) {
+        if (!sessionCacheProperties.getEnabled()) {
+            return reactiveStringRedisTemplate.hasKey(getTokenKey(userKey));
+        }
+        if (cache.getIfPresent(userKey) != null) {
+            return LOGIN;
+        }
+        return reactiveStringRedisTemplate.hasKey(getTokenKey(userKey))
+                .doOnNext(isLogin -> {
+                    if (isLogin) {
+                        cache.put(userKey, Boolean.TRUE);
+                    }
+                });
+    }
+
+    /**
+     * 失效本地会话
+     *
+     * @param userKey 用户标识
+     */
+    public void invalidate(String userKey) {
+        cache.invalidate(userKey);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (INVALIDATE_CHANNEL.equals(channel)) {
+            invalidate(body);
+        } else if (body.startsWith(CacheConstants.LOGIN_TOKEN_KEY)) {
+            invalidate(body.substring(CacheConstants.LOGIN_TOKEN_KEY.length()));
+        }
+    }
+
+    /**
+     * 获取缓存key
+     */
+    private String getTokenKey(String userKey) {
+        return CacheConstants.LOGIN_TOKEN_KEY + userKey;
+    }
+}
@@ -0,0 +1,123 @@
+package net.hwyz.iov.cloud.mpt.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import net.hwyz.iov.cloud.framework.common.util.JwtUtil;
+import net.hwyz.iov.cloud.mpt.gateway.config.properties.TokenCacheProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌解析结果本地缓存
+ * <p>
+ * 以令牌摘要为key缓存验签后的Claims，有效令牌最晚在其exp时刻失效，验签失败的令牌短时缓存为空结果。
+ * 有效期在写入时读取配置，配置刷新后对新条目生效；最大条数在刷新时调整
+ *
+ * @author hwyz_leo
+ */
+@Component
+public class TokenClaimsCache {
+    @Autowired
+    private TokenCacheProperties tokenCacheProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, Optional<Claims>> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(tokenCacheProperties.getMaximumSize())
+                .expireAfter(new ClaimsExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.token");
+    }
+
+    /**
+     * 配置刷新后调整缓存容量
+     */
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefresh() {
+        cache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(tokenCacheProperties.getMaximumSize()));
+    }
+
+    /**
+     * 解析令牌
+     *
+     * @param token 令牌
+     * @return 令牌数据，令牌无效时返回null
+     */
+    public Claims parse(String token) {
+        if (!tokenCacheProperties.getEnabled()) {
+            return parseToken(token);
+        }
+        return cache.get(digest(token), key -> Optional.ofNullable(parseToken(token))).orElse(null);
+    }
+
+    private Claims parseToken(String token) {
+        try {
+            return JwtUtil.parseToken(token);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 计算令牌摘要，避免在内存中保留令牌原文
+     */
+    private static String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = messageDigest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 按令牌过期时间计算缓存有效期
+     */
+    private class ClaimsExpiry implements Expiry<String, Optional<Claims>> {
+        @Override
+        public long expireAfterCreate(String key, Optional<Claims> value, long currentTime) {
+            if (value.isEmpty()) {
+                return TimeUnit.SECONDS.toNanos(tokenCacheProperties.getInvalidExpireSeconds());
+            }
+            long expireNanos = TimeUnit.SECONDS.toNanos(tokenCacheProperties.getExpireSeconds());
+            Date expiration = value.get().getExpiration();
+            if (expiration != null) {
+                long remainingMillis = Math.max(0, expiration.getTime() - System.currentTimeMillis());
+                expireNanos = Math.min(expireNanos, TimeUnit.MILLISECONDS.toNanos(remainingMillis));
+            }
+            return expireNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Optional<Claims> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Optional<Claims> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package net.hwyz.iov.cloud.mpt.gateway.captcha;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+/**
+ * 已生成的验证码
+ *
+ * @author hwyz_leo
+ */
+@Getter
+@AllArgsConstructor
+public class Captcha {
+    /**
+     * 验证码类型
+     */
+    private final String type;
+
+    /**
+     * 验证码答案
+     */
+    private final String code;
+
+    /**
+     * 编码后的图片
+     */
+    private final byte[] image;
+
+    /**
+     * 图片格式（jpg png）
+     */
+    private final String format;
+
+    /**
+     * 图片内容类型
+     */
+    public MediaType getContentType() {
+        return CaptchaRenderer.FORMAT_PNG.equals(format) ? MediaType.IMAGE_PNG : MediaType.IMAGE_JPEG;
+    }
+}
@@ -0,0 +1,77 @@
+package net.hwyz.iov.cloud.mpt.gateway.captcha;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import net.hwyz.iov.cloud.mpt.gateway.config.properties.CaptchaProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 验证码渲染专用线程池
+ * <p>
+ * 图片渲染与编码不占用Netty事件循环线程，队列满时立即拒绝（RejectedExecutionException），由调用方返回可重试状态
+ *
+ * @author hwyz_leo
+ */
+@Component
+public class CaptchaExecutor {
+    @Autowired
+    private CaptchaProperties captchaProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+
+    private Scheduler scheduler;
+
+    @PostConstruct
+    public void init() {
+        CaptchaProperties.Executor config = captchaProperties.getExecutor();
+        Counter rejected = Counter.builder("captcha.render.rejected")
+                .description("验证码渲染队列已满被拒绝的次数")
+                .register(meterRegistry);
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(config.getThreads(), config.getThreads(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "captcha-render-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("验证码渲染队列已满");
+                });
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "captcha.render");
+        scheduler = Schedulers.fromExecutorService(executor, "captcha-render");
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.dispose();
+        executor.shutdownNow();
+    }
+
+    /**
+     * 在渲染线程池中执行任务
+     *
+     * @param task 渲染任务
+     */
+    public <T> Mono<T> submit(Callable<T> task) {
+        return Mono.fromCallable(task).subscribeOn(scheduler);
+    }
+}
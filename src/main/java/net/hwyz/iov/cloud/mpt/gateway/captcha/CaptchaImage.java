@@ -0,0 +1,23 @@
+package net.hwyz.iov.cloud.mpt.gateway.captcha;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 已下发的验证码图片
+ *
+ * @author hwyz_leo
+ */
+@Getter
+@AllArgsConstructor
+public class CaptchaImage {
+    /**
+     * 验证码唯一标识
+     */
+    private final String uuid;
+
+    /**
+     * 验证码
+     */
+    private final Captcha captcha;
+}
@@ -0,0 +1,135 @@
+package net.hwyz.iov.cloud.mpt.gateway.captcha;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.hwyz.iov.cloud.mpt.gateway.config.properties.CaptchaProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 预生成验证码池
+ * <p>
+ * 后台线程在池中数量低于低水位时按补充速率补满，请求时直接从池中取出，池空时退化为在渲染线程池中现场渲染
+ *
+ * @author hwyz_leo
+ */
+@Slf4j
+@Component
+public class CaptchaPool {
+    /**
+     * 补充检查间隔（毫秒）
+     */
+    private static final long REFILL_INTERVAL_MILLIS = 100;
+
+    @Autowired
+    private CaptchaRenderer captchaRenderer;
+
+    @Autowired
+    private CaptchaExecutor captchaExecutor;
+
+    @Autowired
+    private CaptchaProperties captchaProperties;
+
+    private final Map<String, TypePool> pools = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "captcha-pool");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refill, 0, REFILL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 取出一个验证码，池空时提交到渲染线程池现场渲染
+     *
+     * @param type 验证码类型
+     */
+    public Mono<Captcha> take(String type) {
+        if (captchaProperties.getPool().getEnabled()) {
+            Captcha captcha = pool(type).poll();
+            if (captcha != null) {
+                return Mono.just(captcha);
+            }
+        }
+        return captchaExecutor.submit(() -> captchaRenderer.render(type));
+    }
+
+    private void refill() {
+        try {
+            CaptchaProperties.Pool config = captchaProperties.getPool();
+            String type = captchaProperties.getType();
+            if (!Boolean.TRUE.equals(captchaProperties.getEnabled()) || !config.getEnabled() || type == null) {
+                return;
+            }
+            TypePool pool = pool(type);
+            if (!pool.refilling && pool.size() >= config.getLowWater()) {
+                return;
+            }
+            pool.refilling = true;
+            long batch = Math.max(1, config.getRefillRate() * REFILL_INTERVAL_MILLIS / 1000);
+            for (int i = 0; i < batch && pool.size() < config.getCapacity(); i++) {
+                pool.offer(captchaRenderer.render(type));
+            }
+            pool.refilling = pool.size() < config.getCapacity();
+        } catch (Exception e) {
+            logger.warn("验证码池补充异常", e);
+        }
+    }
+
+    private TypePool pool(String type) {
+        return pools.computeIfAbsent(type, key -> new TypePool());
+    }
+
+    /**
+     * 单一类型验证码池
+     */
+    private static class TypePool {
+        private final Queue<Captcha> queue = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger size = new AtomicInteger();
+
+        /**
+         * 是否处于补充中（低于低水位后持续补充直至补满）
+         */
+        private volatile boolean refilling;
+
+        private Captcha poll() {
+            Captcha captcha = queue.poll();
+            if (captcha != null) {
+                size.decrementAndGet();
+            }
+            return captcha;
+        }
+
+        private void offer(Captcha captcha) {
+            queue.offer(captcha);
+            size.incrementAndGet();
+        }
+
+        private int size() {
+            return size.get();
+        }
+    }
+}
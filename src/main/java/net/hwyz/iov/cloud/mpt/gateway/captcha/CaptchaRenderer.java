@@ -0,0 +1,111 @@
+package net.hwyz.iov.cloud.mpt.gateway.captcha;
+
+import com.google.code.kaptcha.Producer;
+import jakarta.annotation.Resource;
+import net.hwyz.iov.cloud.mpt.gateway.config.properties.CaptchaProperties;
+import net.hwyz.iov.cloud.mpt.gateway.exception.CaptchaException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 验证码渲染
+ * <p>
+ * ImageWriter与编码缓冲按线程复用，渲染只在验证码池线程与渲染线程池中进行
+ *
+ * @author hwyz_leo
+ */
+@Component
+public class CaptchaRenderer {
+    public static final String FORMAT_JPG = "jpg";
+
+    public static final String FORMAT_PNG = "png";
+
+    private static final ThreadLocal<Map<String, ImageWriter>> WRITERS = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * 编码缓冲初始大小，按最近一次编码结果调整，通常无需扩容
+     */
+    private volatile int bufferSizeHint = 4096;
+
+    static {
+        // 内存编码，不使用磁盘缓存文件
+        ImageIO.setUseCache(false);
+    }
+
+    @Resource(name = "captchaProducer")
+    private Producer captchaProducer;
+
+    @Resource(name = "captchaProducerMath")
+    private Producer captchaProducerMath;
+
+    @Autowired
+    private CaptchaProperties captchaProperties;
+
+    /**
+     * 生成验证码文本并渲染图片
+     *
+     * @param type 验证码类型（math 数组计算 char 字符）
+     */
+    public Captcha render(String type) throws IOException {
+        String capStr, code;
+        BufferedImage image;
+        if ("math".equals(type)) {
+            String capText = captchaProducerMath.createText();
+            capStr = capText.substring(0, capText.lastIndexOf("@"));
+            code = capText.substring(capText.lastIndexOf("@") + 1);
+            image = captchaProducerMath.createImage(capStr);
+        } else if ("char".equals(type)) {
+            capStr = code = captchaProducer.createText();
+            image = captchaProducer.createImage(capStr);
+        } else {
+            throw new CaptchaException("不支持的验证码类型：" + type);
+        }
+        String format = FORMAT_PNG.equals(captchaProperties.getImageFormat()) ? FORMAT_PNG : FORMAT_JPG;
+        return new Captcha(type, code, encode(image, format), format);
+    }
+
+    /**
+     * 图片编码
+     */
+    private byte[] encode(BufferedImage image, String format) throws IOException {
+        ImageWriter writer = WRITERS.get().computeIfAbsent(format, key -> ImageIO.getImageWritersByFormatName(key).next());
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (FORMAT_PNG.equals(format)) {
+            // 转换为调色板图片，显著减小PNG体积
+            image = toIndexed(image);
+        } else if (param.canWriteCompressed() && captchaProperties.getJpegQuality() != null) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(captchaProperties.getJpegQuality());
+        }
+        ByteArrayOutputStream os = new ByteArrayOutputStream(bufferSizeHint);
+        try (ImageOutputStream ios = new MemoryCacheImageOutputStream(os)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.reset();
+        }
+        bufferSizeHint = os.size() + (os.size() >> 3);
+        return os.toByteArray();
+    }
+
+    private BufferedImage toIndexed(BufferedImage image) {
+        BufferedImage indexed = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_INDEXED);
+        Graphics2D graphics = indexed.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return indexed;
+    }
+}
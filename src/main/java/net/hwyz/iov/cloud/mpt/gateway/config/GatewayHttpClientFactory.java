@@ -0,0 +1,229 @@
+package net.hwyz.iov.cloud.mpt.gateway.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import reactor.netty.http.Http2AllocationStrategy;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 上游HttpClient工厂
+ * <p>
+ * 在Spring Cloud Gateway默认工厂的基础上支持HTTP/2：启用后连接池按并发流数分配连接。
+ * 同时按需构建使用独立连接池或与全局协议不同的HttpClient，供路由单独选择，
+ * 慢服务耗尽自己的连接池时不影响其他路由
+ *
+ * @author hwyz_leo
+ */
+public class GatewayHttpClientFactory extends HttpClientFactory {
+    private static final String HTTP2_POOL_SUFFIX = "-h2";
+
+    private static final String ACTIVE_STREAMS = "reactor.netty.connection.provider.active.streams";
+
+    /**
+     * HTTP/2连接池不发布total.connections，连接数为活跃与空闲连接之和
+     */
+    private static final String ACTIVE_CONNECTIONS = "reactor.netty.connection.provider.active.connections";
+
+    private static final String IDLE_CONNECTIONS = "reactor.netty.connection.provider.idle.connections";
+
+    private final HttpClientProperties properties;
+
+    private final ServerProperties serverProperties;
+
+    private final HttpClientSslConfigurer sslConfigurer;
+
+    private final List<HttpClientCustomizer> customizers;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, HttpClient> httpClients = new ConcurrentHashMap<>();
+
+    /**
+     * 本工厂创建的连接池
+     */
+    private final List<ConnectionProvider> connectionProviders = new CopyOnWriteArrayList<>();
+
+    /**
+     * 按需构建的HttpClient使用的连接池，共享连接池之外的均需在销毁时释放
+     */
+    private final List<ConnectionProvider> derivedConnectionProviders = new CopyOnWriteArrayList<>();
+
+    public GatewayHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+                                    HttpClientSslConfigurer sslConfigurer, List<HttpClientCustomizer> customizers,
+                                    MeterRegistry meterRegistry) {
+        super(properties, serverProperties, sslConfigurer, customizers);
+        this.properties = properties;
+        this.serverProperties = serverProperties;
+        this.sslConfigurer = sslConfigurer;
+        this.customizers = customizers;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 获取指定连接池与协议的HttpClient
+     *
+     * @param pool  独立连接池名称（spring.cloud.gateway.httpclient.pools中的键），为空时使用共享连接池
+     * @param http2 是否启用HTTP/2，为空时沿用全局配置
+     * @return HttpClient
+     */
+    public HttpClient getHttpClient(String pool, Boolean http2) throws Exception {
+        boolean useHttp2 = http2 != null ? http2 : properties.getHttp2().isEnabled();
+        if (pool == null && useHttp2 == properties.getHttp2().isEnabled()) {
+            return getObject();
+        }
+        String key = (pool == null ? "" : pool) + (useHttp2 ? HTTP2_POOL_SUFFIX : "");
+        HttpClient httpClient = httpClients.get(key);
+        if (httpClient == null) {
+            httpClient = httpClients.computeIfAbsent(key, k -> {
+                HttpClientProperties derived = copyOf(properties);
+                if (pool != null) {
+                    derived.setPool(isolatedPool(pool, properties.getPools().get(pool)));
+                    // 独立连接池的连接数上限优先于全局HTTP/2配置
+                    derived.getHttp2().setMaxConnections(null);
+                }
+                derived.getHttp2().setEnabled(useHttp2);
+                GatewayHttpClientFactory factory = new GatewayHttpClientFactory(derived, serverProperties, sslConfigurer,
+                        customizers, meterRegistry);
+                HttpClient created = factory.createInstance();
+                derivedConnectionProviders.addAll(factory.connectionProviders);
+                return created;
+            });
+        }
+        return httpClient;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        super.destroy();
+        httpClients.clear();
+        derivedConnectionProviders.forEach(ConnectionProvider::dispose);
+        derivedConnectionProviders.clear();
+    }
+
+    @Override
+    protected HttpClient createInstance() {
+        HttpClient httpClient = super.createInstance();
+        if (properties.getHttp2().isEnabled()) {
+            // 明文走h2c升级，TLS走ALPN协商，上游不支持时均回退HTTP/1.1
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        return httpClient;
+    }
+
+    @Override
+    protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+        HttpClientProperties.Pool pool = properties.getPool();
+        HttpClientProperties.Http2 http2 = properties.getHttp2();
+        if (pool.getType() == HttpClientProperties.Pool.PoolType.DISABLED) {
+            return ConnectionProvider.newConnection();
+        }
+        String name = http2.isEnabled() ? pool.getName() + HTTP2_POOL_SUFFIX : pool.getName();
+        boolean fixed = pool.getType() == HttpClientProperties.Pool.PoolType.FIXED;
+        int maxConnections = fixed ? pool.getMaxConnections() : Integer.MAX_VALUE;
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMillis(fixed ? pool.getAcquireTimeout() : 0))
+                .evictInBackground(pool.getEvictionInterval())
+                .metrics(pool.isMetrics() || http2.isEnabled());
+        if (pool.getMaxIdleTime() != null) {
+            builder.maxIdleTime(pool.getMaxIdleTime());
+        }
+        if (pool.getMaxLifeTime() != null) {
+            builder.maxLifeTime(pool.getMaxLifeTime());
+        }
+        if (http2.isEnabled()) {
+            // 分配策略会覆盖上面的maxConnections
+            builder.allocationStrategy(Http2AllocationStrategy.builder()
+                    .maxConcurrentStreams(http2.getMaxConcurrentStreams())
+                    .minConnections(http2.getMinConnections())
+                    .maxConnections(http2.getMaxConnections() != null ? http2.getMaxConnections() : maxConnections)
+                    .build());
+            registerStreamsPerConnection(name);
+        }
+        ConnectionProvider connectionProvider = builder.build();
+        connectionProviders.add(connectionProvider);
+        return connectionProvider;
+    }
+
+    /**
+     * 注册HTTP/2连接池的平均每连接流数指标，由Reactor Netty的连接池指标汇总计算
+     *
+     * @param poolName 连接池名称
+     */
+    private void registerStreamsPerConnection(String poolName) {
+        if (meterRegistry == null) {
+            return;
+        }
+        Gauge.builder("gateway.upstream.http2.streams.per.connection", meterRegistry, registry -> {
+                    double connections = sum(registry, ACTIVE_CONNECTIONS, poolName) + sum(registry, IDLE_CONNECTIONS, poolName);
+                    return connections == 0 ? 0 : sum(registry, ACTIVE_STREAMS, poolName) / connections;
+                })
+                .description("HTTP/2连接池中平均每个连接上的活跃流数")
+                .tag("pool", poolName)
+                .register(meterRegistry);
+    }
+
+    private static double sum(MeterRegistry registry, String meterName, String poolName) {
+        return registry.find(meterName).tag("name", poolName).gauges().stream()
+                .mapToDouble(Gauge::value)
+                .sum();
+    }
+
+    /**
+     * 复制独立连接池配置，连接池以共享连接池名称加键命名并始终开启指标。
+     * 弹性连接池没有连接数上限，起不到隔离作用，按固定连接池处理
+     *
+     * @param key  连接池键
+     * @param pool 连接池配置
+     * @return 连接池配置
+     */
+    private HttpClientProperties.Pool isolatedPool(String key, HttpClientProperties.Pool pool) {
+        HttpClientProperties.Pool target = new HttpClientProperties.Pool();
+        target.setType(pool.getType() == HttpClientProperties.Pool.PoolType.DISABLED
+                ? HttpClientProperties.Pool.PoolType.DISABLED : HttpClientProperties.Pool.PoolType.FIXED);
+        target.setName(properties.getPool().getName() + "-" + key);
+        target.setMaxConnections(pool.getMaxConnections());
+        target.setAcquireTimeout(pool.getAcquireTimeout());
+        target.setMaxIdleTime(pool.getMaxIdleTime());
+        target.setMaxLifeTime(pool.getMaxLifeTime());
+        target.setEvictionInterval(pool.getEvictionInterval());
+        target.setMetrics(true);
+        return target;
+    }
+
+    private static HttpClientProperties copyOf(HttpClientProperties source) {
+        HttpClientProperties target = new HttpClientProperties();
+        target.setConnectTimeout(source.getConnectTimeout());
+        target.setResponseTimeout(source.getResponseTimeout());
+        target.setMaxHeaderSize(source.getMaxHeaderSize());
+        target.setMaxInitialLineLength(source.getMaxInitialLineLength());
+        target.setPool(source.getPool());
+        target.setPools(source.getPools());
+        target.setProxy(source.getProxy());
+        target.setSsl(source.getSsl());
+        target.setWebsocket(source.getWebsocket());
+        target.setWiretap(source.isWiretap());
+        target.setCompression(source.isCompression());
+        HttpClientProperties.Http2 http2 = new HttpClientProperties.Http2();
+        http2.setEnabled(source.getHttp2().isEnabled());
+        http2.setMaxConcurrentStreams(source.getHttp2().getMaxConcurrentStreams());
+        http2.setMinConnections(source.getHttp2().getMinConnections());
+        http2.setMaxConnections(source.getHttp2().getMaxConnections());
+        target.setHttp2(http2);
+        return target;
+    }
+}
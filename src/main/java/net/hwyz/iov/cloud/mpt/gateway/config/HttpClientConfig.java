@@ -0,0 +1,42 @@
+package net.hwyz.iov.cloud.mpt.gateway.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.hwyz.iov.cloud.mpt.gateway.filter.UpstreamRoutingFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.List;
+
+/**
+ * 上游HttpClient配置
+ * <p>
+ * 默认的NettyRoutingFilter通过spring.cloud.gateway.global-filter.netty-routing.enabled关闭，由UpstreamRoutingFilter替代
+ *
+ * @author hwyz_leo
+ */
+@Configuration
+public class HttpClientConfig {
+    @Bean
+    public GatewayHttpClientFactory gatewayHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+                                                             HttpClientSslConfigurer sslConfigurer,
+                                                             List<HttpClientCustomizer> customizers,
+                                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        return new GatewayHttpClientFactory(properties, serverProperties, sslConfigurer, customizers,
+                meterRegistry.getIfAvailable());
+    }
+
+    @Bean
+    public UpstreamRoutingFilter upstreamRoutingFilter(HttpClient httpClient,
+                                                       ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                                                       HttpClientProperties properties,
+                                                       GatewayHttpClientFactory gatewayHttpClientFactory) {
+        return new UpstreamRoutingFilter(httpClient, headersFilters, properties, gatewayHttpClientFactory);
+    }
+}
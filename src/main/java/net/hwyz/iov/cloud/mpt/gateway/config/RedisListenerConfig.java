@@ -0,0 +1,33 @@
+package net.hwyz.iov.cloud.mpt.gateway.config;
+
+import net.hwyz.iov.cloud.mpt.gateway.cache.LoginSessionCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.List;
+
+/**
+ * Redis消息监听配置
+ *
+ * @author hwyz_leo
+ */
+@Configuration
+public class RedisListenerConfig {
+    @Bean
+    public RedisMessageListenerContainer sessionListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                  LoginSessionCache loginSessionCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        // 会话删除、过期、淘汰事件及主动失效广播
+        container.addMessageListener(loginSessionCache, List.of(
+                new PatternTopic("__keyevent@*__:del"),
+                new PatternTopic("__keyevent@*__:expired"),
+                new PatternTopic("__keyevent@*__:evicted"),
+                new ChannelTopic(LoginSessionCache.INVALIDATE_CHANNEL)));
+        return container;
+    }
+}
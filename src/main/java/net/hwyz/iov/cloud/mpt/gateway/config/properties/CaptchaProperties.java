@@ -26,4 +26,62 @@ public class CaptchaProperties {
      * 验证码类型（math 数组计算 char 字符）
      */
     private String type;
+
+    /**
+     * 验证码图片格式（jpg png），png使用调色板编码
+     */
+    private String imageFormat = "jpg";
+
+    /**
+     * jpg图片质量（0-1）
+     */
+    private Float jpegQuality = 0.75f;
+
+    /**
+     * 预生成验证码池配置
+     */
+    private Pool pool = new Pool();
+
+    /**
+     * 验证码渲染线程池配置
+     */
+    private Executor executor = new Executor();
+
+    @Getter
+    @Setter
+    public static class Pool {
+        /**
+         * 验证码池开关
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 池容量
+         */
+        private Integer capacity = 200;
+
+        /**
+         * 低水位，池中数量低于该值时开始补充
+         */
+        private Integer lowWater = 50;
+
+        /**
+         * 补充速率（个/秒）
+         */
+        private Integer refillRate = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class Executor {
+        /**
+         * 渲染线程数
+         */
+        private Integer threads = 2;
+
+        /**
+         * 等待队列长度，队列满时直接拒绝
+         */
+        private Integer queueCapacity = 64;
+    }
 }
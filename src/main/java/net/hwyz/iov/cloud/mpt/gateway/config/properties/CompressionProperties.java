@@ -0,0 +1,44 @@
+package net.hwyz.iov.cloud.mpt.gateway.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 响应压缩配置
+ *
+ * @author hwyz_leo
+ */
+@Getter
+@Setter
+@RefreshScope
+@Configuration
+@ConfigurationProperties(prefix = "gateway.compression")
+public class CompressionProperties {
+    /**
+     * 压缩开关
+     */
+    private Boolean enabled = true;
+
+    /**
+     * 最小压缩大小，Content-Length小于该值时不压缩，未知长度的响应总是压缩
+     */
+    private DataSize minResponseSize = DataSize.ofKilobytes(2);
+
+    /**
+     * 压缩级别（1-9），-1为默认级别
+     */
+    private Integer level = -1;
+
+    /**
+     * 需要压缩的内容类型
+     */
+    private List<String> mimeTypes = new ArrayList<>(List.of("application/json", "application/javascript",
+            "application/xml", "text/html", "text/css", "text/plain", "text/xml", "text/javascript"));
+}
@@ -0,0 +1,67 @@
+package net.hwyz.iov.cloud.mpt.gateway.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 路由自适应并发限制配置
+ *
+ * @author hwyz_leo
+ */
+@Getter
+@Setter
+@RefreshScope
+@Configuration
+@ConfigurationProperties(prefix = "gateway.concurrency-limit")
+public class ConcurrencyLimitProperties {
+    /**
+     * 并发限制开关，默认关闭
+     */
+    private Boolean enabled = false;
+
+    /**
+     * 启用并发限制的路由ID，为空时对所有路由生效
+     */
+    private List<String> routes = new ArrayList<>();
+
+    /**
+     * 初始并发限制
+     */
+    private Integer initialLimit = 100;
+
+    /**
+     * 最小并发限制
+     */
+    private Integer minLimit = 10;
+
+    /**
+     * 最大并发限制
+     */
+    private Integer maxLimit = 1000;
+
+    /**
+     * 平滑系数（0-1），越小限制变化越慢
+     */
+    private Double smoothing = 0.2;
+
+    /**
+     * 延迟容忍倍数，短期延迟不超过长期延迟的该倍数时不收缩限制
+     */
+    private Double rttTolerance = 1.5;
+
+    /**
+     * 采样窗口（毫秒），每个窗口以平均延迟调整一次限制
+     */
+    private Integer sampleWindowMillis = 100;
+
+    /**
+     * 长期延迟指数平均的样本窗口（以采样窗口计）
+     */
+    private Integer longWindow = 600;
+}
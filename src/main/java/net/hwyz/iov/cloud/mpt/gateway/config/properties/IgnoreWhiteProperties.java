@@ -1,7 +1,9 @@
 package net.hwyz.iov.cloud.mpt.gateway.config.properties;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import net.hwyz.iov.cloud.mpt.gateway.util.PathPatternIndex;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.context.annotation.Configuration;
@@ -24,4 +26,15 @@ public class IgnoreWhiteProperties {
      * 放行白名单配置，网关不校验此处的白名单
      */
     private List<String> whites = new ArrayList<>();
+
+    /**
+     * 放行白名单匹配索引，绑定或刷新配置时重新编译
+     */
+    @Setter(AccessLevel.NONE)
+    private PathPatternIndex whitesIndex = PathPatternIndex.EMPTY;
+
+    public void setWhites(List<String> whites) {
+        this.whites = whites;
+        this.whitesIndex = PathPatternIndex.compile(whites);
+    }
 }
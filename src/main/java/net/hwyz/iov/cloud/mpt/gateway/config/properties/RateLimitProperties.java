@@ -0,0 +1,61 @@
+package net.hwyz.iov.cloud.mpt.gateway.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 用户级限流配置
+ *
+ * @author hwyz_leo
+ */
+@Getter
+@Setter
+@RefreshScope
+@Configuration
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+    /**
+     * 限流开关
+     */
+    private Boolean enabled = true;
+
+    /**
+     * 未单独配置的路由使用的配额，未配置时不限流
+     */
+    private Quota defaultQuota = new Quota();
+
+    /**
+     * 按路由ID配置的配额
+     */
+    private Map<String, Quota> routes = new HashMap<>();
+
+    /**
+     * 每个路由最多保留的用户令牌桶数
+     */
+    private Integer maximumSize = 100000;
+
+    /**
+     * 令牌桶空闲多久后回收（秒），应不小于令牌桶从空到满的时长
+     */
+    private Integer idleSeconds = 600;
+
+    @Getter
+    @Setter
+    public static class Quota {
+        /**
+         * 每秒补充的令牌数
+         */
+        private Double replenishRate;
+
+        /**
+         * 令牌桶容量，即允许的突发请求数
+         */
+        private Integer burstCapacity;
+    }
+}
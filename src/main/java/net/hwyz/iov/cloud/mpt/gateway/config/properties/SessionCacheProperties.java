@@ -0,0 +1,34 @@
+package net.hwyz.iov.cloud.mpt.gateway.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 登录会话本地缓存配置
+ *
+ * @author hwyz_leo
+ */
+@Getter
+@Setter
+@RefreshScope
+@Configuration
+@ConfigurationProperties(prefix = "security.session-cache")
+public class SessionCacheProperties {
+    /**
+     * 本地缓存开关
+     */
+    private Boolean enabled = true;
+
+    /**
+     * 最大缓存会话数
+     */
+    private Integer maximumSize = 10000;
+
+    /**
+     * 缓存有效期（秒），未开启Redis键空间通知时，会话注销最多延迟该时长生效
+     */
+    private Integer expireSeconds = 10;
+}
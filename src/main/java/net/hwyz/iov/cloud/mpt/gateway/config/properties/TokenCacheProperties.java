@@ -0,0 +1,39 @@
+package net.hwyz.iov.cloud.mpt.gateway.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 令牌解析结果本地缓存配置
+ *
+ * @author hwyz_leo
+ */
+@Getter
+@Setter
+@RefreshScope
+@Configuration
+@ConfigurationProperties(prefix = "security.token-cache")
+public class TokenCacheProperties {
+    /**
+     * 本地缓存开关
+     */
+    private Boolean enabled = true;
+
+    /**
+     * 最大缓存令牌数
+     */
+    private Integer maximumSize = 10000;
+
+    /**
+     * 有效令牌最长缓存时间（秒），令牌自身过期时间更早时以令牌为准
+     */
+    private Integer expireSeconds = 300;
+
+    /**
+     * 无效令牌缓存时间（秒）
+     */
+    private Integer invalidExpireSeconds = 5;
+}
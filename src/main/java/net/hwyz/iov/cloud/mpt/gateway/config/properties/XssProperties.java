@@ -1,7 +1,9 @@
 package net.hwyz.iov.cloud.mpt.gateway.config.properties;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import net.hwyz.iov.cloud.mpt.gateway.util.PathPatternIndex;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.context.annotation.Configuration;
@@ -25,8 +27,24 @@ public class XssProperties {
      */
     private Boolean enabled;
 
+    /**
+     * 预扫描上限（字节），Content-Length不超过该值的请求体先整体扫描，无需清洗时原样转发并保留Content-Length
+     */
+    private Integer scanLimit = 256 * 1024;
+
     /**
      * 排除路径
      */
     private List<String> excludeUrls = new ArrayList<>();
+
+    /**
+     * 排除路径匹配索引，绑定或刷新配置时重新编译
+     */
+    @Setter(AccessLevel.NONE)
+    private PathPatternIndex excludeUrlsIndex = PathPatternIndex.EMPTY;
+
+    public void setExcludeUrls(List<String> excludeUrls) {
+        this.excludeUrls = excludeUrls;
+        this.excludeUrlsIndex = PathPatternIndex.compile(excludeUrls);
+    }
 }
@@ -2,17 +2,23 @@ package net.hwyz.iov.cloud.mpt.gateway.filter;
 
 import cn.hutool.core.util.StrUtil;
 import io.jsonwebtoken.Claims;
-import net.hwyz.iov.cloud.framework.common.constant.CacheConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import net.hwyz.iov.cloud.framework.common.constant.HttpStatus;
 import net.hwyz.iov.cloud.framework.common.constant.MptSecurityConstants;
 import net.hwyz.iov.cloud.framework.common.constant.TokenConstants;
 import net.hwyz.iov.cloud.framework.common.util.JwtUtil;
-import net.hwyz.iov.cloud.framework.common.util.ServletUtil;
-import net.hwyz.iov.cloud.framework.redis.service.RedisService;
+import net.hwyz.iov.cloud.mpt.gateway.cache.LoginSessionCache;
+import net.hwyz.iov.cloud.mpt.gateway.cache.TokenClaimsCache;
 import net.hwyz.iov.cloud.mpt.gateway.config.properties.IgnoreWhiteProperties;
+import net.hwyz.iov.cloud.mpt.gateway.metrics.FilterMetrics;
+import net.hwyz.iov.cloud.mpt.gateway.util.LogThrottle;
+import net.hwyz.iov.cloud.mpt.gateway.util.RejectResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
@@ -24,6 +30,8 @@ import reactor.core.publisher.Mono;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
 import java.util.List;
 
 /**
@@ -35,50 +43,93 @@ import java.util.List;
 public class AuthFilter implements GlobalFilter, Ordered {
     private static final Logger log = LoggerFactory.getLogger(AuthFilter.class);
 
+    /**
+     * 鉴权通过后保存用户ID的请求属性
+     */
+    public static final String USER_ID_ATTR = AuthFilter.class.getName() + ".userId";
+
+    /**
+     * 鉴权失败日志最小间隔，期间的失败只计数
+     */
+    private static final Duration LOG_INTERVAL = Duration.ofSeconds(10);
+
     // 排除过滤的 uri 地址，nacos自行添加
     @Autowired
     private IgnoreWhiteProperties ignoreWhite;
 
     @Autowired
-    private RedisService redisService;
+    private LoginSessionCache loginSessionCache;
+
+    @Autowired
+    private TokenClaimsCache tokenClaimsCache;
+
+    @Autowired
+    private FilterMetrics filterMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final LogThrottle logThrottle = new LogThrottle(LOG_INTERVAL);
+
+    private final EnumMap<Unauthorized, Counter> unauthorizedCounters = new EnumMap<>(Unauthorized.class);
+
+    private final GatewayFilter delegate = this::doFilter;
 
+    private FilterMetrics.Recorder recorder;
+
+    @PostConstruct
+    public void init() {
+        recorder = filterMetrics.recorder("AuthFilter");
+        for (Unauthorized unauthorized : Unauthorized.values()) {
+            unauthorizedCounters.put(unauthorized, Counter.builder("gateway.auth.rejected")
+                    .description("鉴权失败的请求数")
+                    .tag("reason", unauthorized.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return recorder.record(exchange, chain, delegate);
+    }
+
+    private Mono<Void> doFilter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
         ServerHttpRequest.Builder mutate = request.mutate();
 
         String url = request.getURI().getPath();
         // 跳过不需要验证的路径
-        if (matches(url, ignoreWhite.getWhites())) {
+        if (ignoreWhite.getWhitesIndex().matches(url)) {
             return chain.filter(exchange);
         }
         String token = getToken(request);
         if (StrUtil.isEmpty(token)) {
-            return unauthorizedResponse(exchange, "令牌不能为空");
+            return unauthorizedResponse(exchange, Unauthorized.TOKEN_EMPTY);
         }
-        Claims claims = JwtUtil.parseToken(token);
+        Claims claims = tokenClaimsCache.parse(token);
         if (claims == null) {
-            return unauthorizedResponse(exchange, "令牌已过期或验证不正确！");
+            return unauthorizedResponse(exchange, Unauthorized.TOKEN_INVALID);
         }
         String userkey = JwtUtil.getUserKey(claims);
-        boolean islogin = redisService.hasKey(getTokenKey(userkey));
-        if (!islogin) {
-            return unauthorizedResponse(exchange, "登录状态已过期");
-        }
-        String userid = JwtUtil.getUserId(claims);
-        String username = JwtUtil.getUserName(claims);
-        if (StrUtil.isEmpty(userid) || StrUtil.isEmpty(username)) {
-            return unauthorizedResponse(exchange, "令牌验证失败");
-        }
+        return loginSessionCache.isLogin(userkey).flatMap(islogin -> {
+            if (!islogin) {
+                return unauthorizedResponse(exchange, Unauthorized.SESSION_EXPIRED);
+            }
+            String userid = JwtUtil.getUserId(claims);
+            String username = JwtUtil.getUserName(claims);
+            if (StrUtil.isEmpty(userid) || StrUtil.isEmpty(username)) {
+                return unauthorizedResponse(exchange, Unauthorized.TOKEN_INCOMPLETE);
+            }
 
-        // 设置用户信息到请求
-        addHeader(mutate, MptSecurityConstants.USER_KEY, userkey);
-        addHeader(mutate, MptSecurityConstants.DETAILS_USER_ID, userid);
-        addHeader(mutate, MptSecurityConstants.DETAILS_USERNAME, username);
-        // 内部请求来源参数清除
-        removeHeader(mutate, MptSecurityConstants.FROM_SOURCE);
-        return chain.filter(exchange.mutate().request(mutate.build()).build());
+            exchange.getAttributes().put(USER_ID_ATTR, userid);
+            // 设置用户信息到请求
+            addHeader(mutate, MptSecurityConstants.USER_KEY, userkey);
+            addHeader(mutate, MptSecurityConstants.DETAILS_USER_ID, userid);
+            addHeader(mutate, MptSecurityConstants.DETAILS_USERNAME, username);
+            // 内部请求来源参数清除
+            removeHeader(mutate, MptSecurityConstants.FROM_SOURCE);
+            return chain.filter(exchange.mutate().request(mutate.build()).build());
+        });
     }
 
     private void addHeader(ServerHttpRequest.Builder mutate, String name, Object value) {
@@ -95,16 +146,32 @@ public class AuthFilter implements GlobalFilter, Ordered {
         mutate.headers(httpHeaders -> httpHeaders.remove(name)).build();
     }
 
-    private Mono<Void> unauthorizedResponse(ServerWebExchange exchange, String msg) {
-        log.error("[鉴权异常处理]请求路径:{},错误信息:{}", exchange.getRequest().getPath(), msg);
-        return ServletUtil.webFluxResponseWriter(exchange.getResponse(), msg, HttpStatus.UNAUTHORIZED);
+    private Mono<Void> unauthorizedResponse(ServerWebExchange exchange, Unauthorized unauthorized) {
+        unauthorizedCounters.get(unauthorized).increment();
+        long suppressed = logThrottle.tryAcquire();
+        if (suppressed >= 0) {
+            log.error("[鉴权异常处理]请求路径:{},错误信息:{},此前省略{}条", exchange.getRequest().getPath(), unauthorized.msg, suppressed);
+        }
+        return unauthorized.response.write(exchange.getResponse());
     }
 
     /**
-     * 获取缓存key
+     * 鉴权失败原因
      */
-    private String getTokenKey(String token) {
-        return CacheConstants.LOGIN_TOKEN_KEY + token;
+    private enum Unauthorized {
+        TOKEN_EMPTY("令牌不能为空"),
+        TOKEN_INVALID("令牌已过期或验证不正确！"),
+        SESSION_EXPIRED("登录状态已过期"),
+        TOKEN_INCOMPLETE("令牌验证失败");
+
+        private final String msg;
+
+        private final RejectResponse response;
+
+        Unauthorized(String msg) {
+            this.msg = msg;
+            this.response = RejectResponse.of(msg, HttpStatus.UNAUTHORIZED);
+        }
     }
 
     /**
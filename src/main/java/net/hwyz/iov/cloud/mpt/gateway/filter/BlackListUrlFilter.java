@@ -1,13 +1,17 @@
 package net.hwyz.iov.cloud.mpt.gateway.filter;
 
-import net.hwyz.iov.cloud.framework.common.util.ServletUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import net.hwyz.iov.cloud.mpt.gateway.metrics.FilterMetrics;
+import net.hwyz.iov.cloud.mpt.gateway.util.RejectResponse;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * 黑名单过滤器
@@ -16,17 +20,22 @@ import java.util.regex.Pattern;
  */
 @Component
 public class BlackListUrlFilter extends AbstractGatewayFilterFactory<BlackListUrlFilter.Config> {
+    private static final RejectResponse FORBIDDEN = RejectResponse.of("请求地址不允许访问");
+
+    @Autowired
+    private FilterMetrics filterMetrics;
+
     @Override
     public GatewayFilter apply(Config config) {
-        return (exchange, chain) -> {
+        return filterMetrics.timed(name(), (exchange, chain) -> {
 
             String url = exchange.getRequest().getURI().getPath();
             if (config.matchBlacklist(url)) {
-                return ServletUtil.webFluxResponseWriter(exchange.getResponse(), "请求地址不允许访问");
+                return FORBIDDEN.write(exchange.getResponse());
             }
 
             return chain.filter(exchange);
-        };
+        });
     }
 
     public BlackListUrlFilter() {
@@ -34,12 +43,29 @@ public class BlackListUrlFilter extends AbstractGatewayFilterFactory<BlackListUr
     }
 
     public static class Config {
+        /**
+         * 路径判定结果缓存数量
+         */
+        private static final int DECISION_CACHE_SIZE = 1024;
+
         private List<String> blacklistUrl;
 
-        private List<Pattern> blacklistUrlPattern = new ArrayList<>();
+        /**
+         * 所有黑名单合并后的正则，一次扫描完成匹配
+         */
+        private Pattern blacklistUrlPattern;
+
+        /**
+         * 最近路径的判定结果
+         */
+        private Cache<String, Boolean> decisions;
 
         public boolean matchBlacklist(String url) {
-            return !blacklistUrlPattern.isEmpty() && blacklistUrlPattern.stream().anyMatch(p -> p.matcher(url).find());
+            Pattern pattern = blacklistUrlPattern;
+            if (pattern == null) {
+                return false;
+            }
+            return decisions.get(url, key -> pattern.matcher(key).find());
         }
 
         public List<String> getBlacklistUrl() {
@@ -48,10 +74,16 @@ public class BlackListUrlFilter extends AbstractGatewayFilterFactory<BlackListUr
 
         public void setBlacklistUrl(List<String> blacklistUrl) {
             this.blacklistUrl = blacklistUrl;
-            this.blacklistUrlPattern.clear();
-            this.blacklistUrl.forEach(url -> {
-                this.blacklistUrlPattern.add(Pattern.compile(url.replaceAll("\\*\\*", "(.*?)"), Pattern.CASE_INSENSITIVE));
-            });
+            if (blacklistUrl == null || blacklistUrl.isEmpty()) {
+                this.blacklistUrlPattern = null;
+                this.decisions = null;
+                return;
+            }
+            String regex = blacklistUrl.stream()
+                    .map(url -> "(?:" + url.replace("**", ".*?") + ")")
+                    .collect(Collectors.joining("|"));
+            this.blacklistUrlPattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+            this.decisions = Caffeine.newBuilder().maximumSize(DECISION_CACHE_SIZE).build();
         }
     }
 
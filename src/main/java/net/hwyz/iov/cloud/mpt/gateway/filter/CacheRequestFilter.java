@@ -1,25 +1,41 @@
 package net.hwyz.iov.cloud.mpt.gateway.filter;
 
+import net.hwyz.iov.cloud.mpt.gateway.metrics.FilterMetrics;
+import net.hwyz.iov.cloud.mpt.gateway.util.CachedRequestBody;
+import net.hwyz.iov.cloud.mpt.gateway.util.RejectResponse;
+import net.hwyz.iov.cloud.mpt.gateway.util.SpooledRequestBody;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
-import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBufferLimitException;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * 获取body请求数据（解决流不能重复读取问题）
+ * <p>
+ * 不超过内存阈值的请求体保存在池化缓冲中，超过阈值的溢出到临时文件并在回放时分块读取，请求结束后删除，
+ * Content-Length超过上限的请求在读取请求体之前直接拒绝。前序过滤器已聚合过请求体时直接复用
  *
  * @author hwyz_leo
  */
 @Component
 public class CacheRequestFilter extends AbstractGatewayFilterFactory<CacheRequestFilter.Config> {
+    private static final RejectResponse BODY_TOO_LARGE = RejectResponse.withStatus("请求体过大", HttpStatus.PAYLOAD_TOO_LARGE);
+
+    @Autowired
+    private FilterMetrics filterMetrics;
+
     public CacheRequestFilter() {
         super(Config.class);
     }
@@ -31,7 +47,7 @@ public class CacheRequestFilter extends AbstractGatewayFilterFactory<CacheReques
 
     @Override
     public GatewayFilter apply(Config config) {
-        CacheRequestGatewayFilter cacheRequestGatewayFilter = new CacheRequestGatewayFilter();
+        GatewayFilter cacheRequestGatewayFilter = filterMetrics.timed(name(), new CacheRequestGatewayFilter(config));
         Integer order = config.getOrder();
         if (order == null) {
             return cacheRequestGatewayFilter;
@@ -40,30 +56,63 @@ public class CacheRequestFilter extends AbstractGatewayFilterFactory<CacheReques
     }
 
     public static class CacheRequestGatewayFilter implements GatewayFilter {
+        private final long memoryThreshold;
+
+        private final long maxSize;
+
+        public CacheRequestGatewayFilter(Config config) {
+            this.memoryThreshold = config.getMemoryThreshold().toBytes();
+            this.maxSize = config.getMaxSize().toBytes();
+        }
+
         @Override
         public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
             // GET DELETE 不过滤
-            HttpMethod method = exchange.getRequest().getMethod();
+            ServerHttpRequest request = exchange.getRequest();
+            HttpMethod method = request.getMethod();
             if (method == null || method == HttpMethod.GET || method == HttpMethod.DELETE) {
                 return chain.filter(exchange);
             }
-            return ServerWebExchangeUtils.cacheRequestBodyAndRequest(exchange, (serverHttpRequest) -> {
-                if (serverHttpRequest == exchange.getRequest()) {
-                    return chain.filter(exchange);
-                }
-                return chain.filter(exchange.mutate().request(serverHttpRequest).build());
-            });
+            // 前序过滤器已聚合的请求体直接复用
+            CachedRequestBody cached = CachedRequestBody.get(exchange);
+            if (cached != null) {
+                return chain.filter(cached.decorate(exchange));
+            }
+            // 超过上限的请求不做任何缓冲
+            if (request.getHeaders().getContentLength() > maxSize) {
+                return reject(exchange);
+            }
+            SpooledRequestBody spooled = new SpooledRequestBody(exchange.getResponse().bufferFactory(), memoryThreshold, maxSize);
+            return spooled.spool(request.getBody())
+                    .doOnNext(body -> body.bind(exchange))
+                    .onErrorResume(DataBufferLimitException.class, e -> reject(exchange).then(Mono.empty()))
+                    .flatMap(body -> chain.filter(body.decorate(exchange)))
+                    .doFinally(signalType -> spooled.cleanup());
+        }
+
+        private Mono<Void> reject(ServerWebExchange exchange) {
+            return BODY_TOO_LARGE.write(exchange.getResponse());
         }
     }
 
     @Override
     public List<String> shortcutFieldOrder() {
-        return Collections.singletonList("order");
+        return Arrays.asList("order", "memoryThreshold", "maxSize");
     }
 
     static class Config {
         private Integer order;
 
+        /**
+         * 内存缓存阈值，超过后溢出到临时文件
+         */
+        private DataSize memoryThreshold = DataSize.ofMegabytes(1);
+
+        /**
+         * 请求体上限，超过时返回413
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(100);
+
         public Integer getOrder() {
             return order;
         }
@@ -71,5 +120,21 @@ public class CacheRequestFilter extends AbstractGatewayFilterFactory<CacheReques
         public void setOrder(Integer order) {
             this.order = order;
         }
+
+        public DataSize getMemoryThreshold() {
+            return memoryThreshold;
+        }
+
+        public void setMemoryThreshold(DataSize memoryThreshold) {
+            this.memoryThreshold = memoryThreshold;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,232 @@
+package net.hwyz.iov.cloud.mpt.gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import net.hwyz.iov.cloud.mpt.gateway.config.properties.CompressionProperties;
+import net.hwyz.iov.cloud.mpt.gateway.metrics.FilterMetrics;
+import net.hwyz.iov.cloud.mpt.gateway.util.GzipEncoder;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应压缩过滤器
+ * <p>
+ * 客户端支持gzip且响应类型在允许列表中、长度不小于下限时，按数据块流式压缩响应体。
+ * 在响应缓存与请求合并之外装饰响应，缓存命中与共享的响应同样压缩。
+ * 按路由记录压缩前后字节数（gateway.compression.bytes）与压缩耗时（gateway.compression.time）
+ *
+ * @author hwyz_leo
+ */
+@Component
+public class CompressionFilter implements GlobalFilter, Ordered {
+    private static final String GZIP = "gzip";
+
+    private static final String WILDCARD = "*";
+
+    private static final String UNKNOWN_ROUTE = "unknown";
+
+    @Autowired
+    private CompressionProperties compressionProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private FilterMetrics filterMetrics;
+
+    private final GatewayFilter delegate = this::doFilter;
+
+    private FilterMetrics.Recorder recorder;
+
+    private final Map<String, RouteMeters> routeMeters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        recorder = filterMetrics.recorder("CompressionFilter");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return recorder.record(exchange, chain, delegate);
+    }
+
+    private Mono<Void> doFilter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!compressionProperties.getEnabled() || !acceptsGzip(exchange.getRequest().getHeaders())) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange.mutate().response(new GzipResponse(exchange)).build());
+    }
+
+    /**
+     * 判断客户端是否接受gzip，显式的gzip优先于通配符*，q值为0表示不接受
+     */
+    private boolean acceptsGzip(HttpHeaders headers) {
+        Double gzip = null;
+        Double wildcard = null;
+        for (String value : headers.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String encoding : value.split(",")) {
+                String[] parts = encoding.split(";");
+                String coding = parts[0].trim();
+                if (GZIP.equalsIgnoreCase(coding)) {
+                    gzip = quality(parts);
+                } else if (WILDCARD.equals(coding)) {
+                    wildcard = quality(parts);
+                }
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return wildcard != null && wildcard > 0;
+    }
+
+    private double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                try {
+                    return Double.parseDouble(param.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private RouteMeters routeMeters(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route == null ? UNKNOWN_ROUTE : route.getId();
+        RouteMeters meters = routeMeters.get(routeId);
+        if (meters == null) {
+            meters = routeMeters.computeIfAbsent(routeId, RouteMeters::new);
+        }
+        return meters;
+    }
+
+    @Override
+    public int getOrder() {
+        // 在响应缓存、请求合并（NettyWriteResponseFilter之前一位）之前
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+    }
+
+    /**
+     * 单个路由的压缩指标
+     */
+    private class RouteMeters {
+        private final Counter bytesIn;
+
+        private final Counter bytesOut;
+
+        private final Timer time;
+
+        private RouteMeters(String routeId) {
+            bytesIn = bytesCounter(routeId, "in");
+            bytesOut = bytesCounter(routeId, "out");
+            time = Timer.builder("gateway.compression.time")
+                    .description("每个响应的压缩耗时")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+        }
+
+        private Counter bytesCounter(String routeId, String direction) {
+            return Counter.builder("gateway.compression.bytes")
+                    .description("压缩前（in）后（out）的响应字节数，两者之差为节省的字节数")
+                    .tag("route", routeId)
+                    .tag("direction", direction)
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    private class GzipResponse extends ServerHttpResponseDecorator {
+        private final ServerWebExchange exchange;
+
+        private GzipResponse(ServerWebExchange exchange) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!isCompressible()) {
+                return super.writeWith(body);
+            }
+            HttpHeaders headers = getDelegate().getHeaders();
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            // 弱化ETag，压缩后的内容与原ETag不再逐字节一致
+            String etag = headers.getETag();
+            if (etag != null && !etag.startsWith("W/")) {
+                headers.setETag("W/" + etag);
+            }
+            ServerHttpResponse response = getDelegate();
+            return super.writeWith(Flux.using(
+                    () -> new GzipEncoder(response.bufferFactory(), compressionProperties.getLevel()),
+                    encoder -> Flux.from(body)
+                            .concatMapIterable(encoder::encode)
+                            .concatWith(Flux.defer(() -> Flux.fromIterable(encoder.finish())))
+                            .doOnComplete(() -> record(encoder)),
+                    GzipEncoder::close, false));
+        }
+
+        private boolean isCompressible() {
+            HttpHeaders headers = getDelegate().getHeaders();
+            HttpStatusCode status = getDelegate().getStatusCode();
+            if (status != null && (status.value() == HttpStatus.NO_CONTENT.value() || status.value() == HttpStatus.NOT_MODIFIED.value())) {
+                return false;
+            }
+            if (headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+                return false;
+            }
+            long contentLength = headers.getContentLength();
+            if (contentLength >= 0 && contentLength < compressionProperties.getMinResponseSize().toBytes()) {
+                return false;
+            }
+            MediaType contentType = headers.getContentType();
+            if (contentType == null) {
+                return false;
+            }
+            List<String> mimeTypes = compressionProperties.getMimeTypes();
+            for (String mimeType : mimeTypes) {
+                if (contentType.isCompatibleWith(MediaType.parseMediaType(mimeType))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void record(GzipEncoder encoder) {
+            RouteMeters meters = routeMeters(exchange);
+            meters.bytesIn.increment(encoder.getBytesIn());
+            meters.bytesOut.increment(encoder.getBytesOut());
+            meters.time.record(encoder.getDeflateNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package net.hwyz.iov.cloud.mpt.gateway.filter;
+
+import jakarta.annotation.PostConstruct;
+import net.hwyz.iov.cloud.mpt.gateway.config.properties.ConcurrencyLimitProperties;
+import net.hwyz.iov.cloud.mpt.gateway.handler.SentinelFallbackHandler;
+import net.hwyz.iov.cloud.mpt.gateway.limit.ConcurrencyLimiter;
+import net.hwyz.iov.cloud.mpt.gateway.metrics.FilterMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 路由自适应并发限制过滤器
+ * <p>
+ * 在鉴权、用户限流与XSS过滤之后执行，超过路由当前并发限制的请求立即拒绝；
+ * 从转发到响应头提交（上游响应头到达）的耗时作为延迟样本调整限制，不包含向客户端传输响应体的时间，
+ * 未提交响应头即取消的请求只释放名额。websocket请求不限制；需显式开启，可按路由ID限定范围
+ *
+ * @author hwyz_leo
+ */
+@Component
+public class ConcurrencyLimitFilter implements GlobalFilter, Ordered {
+    private static final String WEBSOCKET = "websocket";
+
+    private static final String WS = "ws";
+
+    private static final String WSS = "wss";
+
+    @Autowired
+    private ConcurrencyLimitProperties concurrencyLimitProperties;
+
+    @Autowired
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    private FilterMetrics filterMetrics;
+
+    private final GatewayFilter delegate = this::doFilter;
+
+    private FilterMetrics.Recorder recorder;
+
+    @PostConstruct
+    public void init() {
+        recorder = filterMetrics.recorder("ConcurrencyLimitFilter");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return recorder.record(exchange, chain, delegate);
+    }
+
+    private Mono<Void> doFilter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null || !isLimited(route, exchange)) {
+            return chain.filter(exchange);
+        }
+        ConcurrencyLimiter.RouteLimit limit = concurrencyLimiter.get(route.getId());
+        if (!limit.tryAcquire()) {
+            return SentinelFallbackHandler.BLOCKED.write(exchange.getResponse());
+        }
+        long start = System.nanoTime();
+        AtomicLong rtt = new AtomicLong();
+        exchange.getResponse().beforeCommit(() -> {
+            rtt.compareAndSet(0, Math.max(1, System.nanoTime() - start));
+            return Mono.empty();
+        });
+        return chain.filter(exchange)
+                .doFinally(signalType -> limit.release(rtt.get()));
+    }
+
+    private boolean isLimited(Route route, ServerWebExchange exchange) {
+        if (!concurrencyLimitProperties.getEnabled()) {
+            return false;
+        }
+        List<String> routes = concurrencyLimitProperties.getRoutes();
+        if (routes != null && !routes.isEmpty() && !routes.contains(route.getId())) {
+            return false;
+        }
+        String scheme = route.getUri().getScheme();
+        if (WS.equalsIgnoreCase(scheme) || WSS.equalsIgnoreCase(scheme)) {
+            return false;
+        }
+        return !WEBSOCKET.equalsIgnoreCase(exchange.getRequest().getHeaders().getUpgrade());
+    }
+
+    @Override
+    public int getOrder() {
+        return -50;
+    }
+}
@@ -0,0 +1,297 @@
+package net.hwyz.iov.cloud.mpt.gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.hwyz.iov.cloud.mpt.gateway.metrics.FilterMetrics;
+import net.hwyz.iov.cloud.mpt.gateway.util.BodyCapture;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 相同请求合并过滤器
+ * <p>
+ * 方法、路径、查询参数与指定请求头都相同的GET请求在前一个请求未完成时不再转发，等待其响应后直接返回同一份响应。
+ * 共享的响应体不超过上限，超过上限、带Set-Cookie、首个请求失败/取消或等待超时时，等待中的请求各自转发上游。
+ * 共享在上游响应体读完时发生，不等待首个请求的客户端下载完成
+ *
+ * @author hwyz_leo
+ */
+@Component
+public class RequestCoalescingFilter extends AbstractGatewayFilterFactory<RequestCoalescingFilter.Config> {
+    private static final String DEFAULT_ROUTE = "default";
+
+    private static final List<String> EXCLUDED_HEADERS = List.of(HttpHeaders.CONTENT_LENGTH, HttpHeaders.TRANSFER_ENCODING,
+            HttpHeaders.CONNECTION, HttpHeaders.DATE, HttpHeaders.CONTENT_ENCODING, HttpHeaders.VARY);
+
+    @Autowired
+    private FilterMetrics filterMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public RequestCoalescingFilter() {
+        super(Config.class);
+    }
+
+    @Override
+    public String name() {
+        return "RequestCoalescingFilter";
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() == null ? DEFAULT_ROUTE : config.getRouteId();
+        GatewayFilter filter = new CoalescingGatewayFilter(config, routeId);
+        // 需在NettyWriteResponseFilter之前装饰响应
+        return new OrderedGatewayFilter(filterMetrics.timed(name(), filter), NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private Counter roleCounter(String routeId, String role) {
+        return Counter.builder("gateway.coalesce.requests")
+                .description("请求合并情况，leader转发上游，follower共享响应，fallback共享失败后自行转发")
+                .tag("route", routeId)
+                .tag("role", role)
+                .register(meterRegistry);
+    }
+
+    private class CoalescingGatewayFilter implements GatewayFilter {
+        private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
+        private final List<String> headerNames;
+
+        private final long maxResponseSize;
+
+        private final Duration maxWait;
+
+        private final Counter leaderCounter;
+
+        private final Counter followerCounter;
+
+        private final Counter fallbackCounter;
+
+        private CoalescingGatewayFilter(Config config, String routeId) {
+            this.headerNames = config.getHeaders() == null ? List.of() : List.copyOf(config.getHeaders());
+            this.maxResponseSize = config.getMaxResponseSize().toBytes();
+            this.maxWait = config.getMaxWait();
+            this.leaderCounter = roleCounter(routeId, "leader");
+            this.followerCounter = roleCounter(routeId, "follower");
+            this.fallbackCounter = roleCounter(routeId, "fallback");
+        }
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            if (exchange.getRequest().getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+            String key = key(exchange.getRequest());
+            Flight flight = new Flight();
+            Flight leader = flights.putIfAbsent(key, flight);
+            if (leader != null) {
+                followerCounter.increment();
+                return leader.sink.asMono().timeout(maxWait, Mono.just(Optional.empty())).flatMap(shared -> {
+                    if (shared.isPresent()) {
+                        return shared.get().write(exchange.getResponse());
+                    }
+                    fallbackCounter.increment();
+                    return chain.filter(exchange);
+                });
+            }
+            leaderCounter.increment();
+            return chain.filter(exchange.mutate().response(new SharingResponse(exchange.getResponse(), flight)).build())
+                    .doFinally(signalType -> {
+                        flights.remove(key, flight);
+                        // 未成功共享时（出错、取消、不可共享）通知等待中的请求自行转发
+                        flight.sink.tryEmitValue(Optional.empty());
+                    });
+        }
+
+        private String key(ServerHttpRequest request) {
+            StringBuilder key = new StringBuilder(128).append(request.getURI().getRawPath());
+            String query = request.getURI().getRawQuery();
+            if (query != null) {
+                key.append('?').append(query);
+            }
+            HttpHeaders headers = request.getHeaders();
+            for (String name : headerNames) {
+                key.append('\n').append(name).append(':');
+                List<String> values = headers.get(name);
+                if (values != null) {
+                    key.append(values);
+                }
+            }
+            return key.toString();
+        }
+
+        /**
+         * 转发首个请求的响应并复制一份，完整且未超过上限时共享给等待中的请求
+         */
+        private class SharingResponse extends ServerHttpResponseDecorator {
+            private final Flight flight;
+
+            private SharingResponse(ServerHttpResponse delegate, Flight flight) {
+                super(delegate);
+                this.flight = flight;
+            }
+
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                HttpHeaders source = getDelegate().getHeaders();
+                // 上游已编码的响应未必被等待中的请求接受，不共享
+                if (getDelegate().getStatusCode() == null || source.containsKey(HttpHeaders.SET_COOKIE)
+                        || source.containsKey(HttpHeaders.CONTENT_ENCODING) || source.getContentLength() > maxResponseSize) {
+                    return super.writeWith(body);
+                }
+                // 在内层装饰器（如响应压缩）改写响应头之前复制，共享的始终是未编码的响应
+                HttpHeaders headers = SharedResponse.copyHeaders(source);
+                BodyCapture capture = new BodyCapture(maxResponseSize);
+                Flux<DataBuffer> captured = Flux.from(body)
+                        .doOnNext(capture::append)
+                        .doOnComplete(() -> {
+                            byte[] bytes = capture.toByteArray();
+                            if (bytes != null) {
+                                flight.sink.tryEmitValue(Optional.of(new SharedResponse(getDelegate().getStatusCode(), headers, bytes)));
+                            }
+                        });
+                if (source.getContentLength() >= 0) {
+                    // 长度已知且不超过上限时按上游速度读完响应体，等待中的请求不受首个请求客户端下载速度影响
+                    captured = captured.onBackpressureBuffer()
+                            .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+                }
+                return super.writeWith(captured);
+            }
+        }
+    }
+
+    /**
+     * 进行中的请求
+     */
+    private static class Flight {
+        private final Sinks.One<Optional<SharedResponse>> sink = Sinks.one();
+    }
+
+    /**
+     * 共享的响应
+     */
+    private static class SharedResponse {
+        private final HttpStatusCode status;
+
+        private final HttpHeaders headers;
+
+        private final ByteBuffer body;
+
+        private SharedResponse(HttpStatusCode status, HttpHeaders copy, byte[] bytes) {
+            this.status = status;
+            this.headers = HttpHeaders.readOnlyHttpHeaders(copy);
+            this.body = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        }
+
+        private static HttpHeaders copyHeaders(HttpHeaders source) {
+            HttpHeaders copy = new HttpHeaders();
+            source.forEach((name, values) -> {
+                if (EXCLUDED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                    copy.put(name, new ArrayList<>(values));
+                }
+            });
+            return copy;
+        }
+
+        private Mono<Void> write(ServerHttpResponse response) {
+            response.setStatusCode(status);
+            response.getHeaders().putAll(headers);
+            response.getHeaders().setContentLength(body.remaining());
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body.duplicate())));
+        }
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return Collections.singletonList("headers");
+    }
+
+    @Override
+    public ShortcutType shortcutType() {
+        return ShortcutType.GATHER_LIST;
+    }
+
+    public static class Config implements HasRouteId {
+        private String routeId;
+
+        /**
+         * 参与比较的请求头，默认Authorization，即只合并同一令牌的请求
+         */
+        private List<String> headers = new ArrayList<>(List.of(HttpHeaders.AUTHORIZATION));
+
+        /**
+         * 共享响应体上限，超过时等待中的请求各自转发
+         */
+        private DataSize maxResponseSize = DataSize.ofMegabytes(1);
+
+        /**
+         * 等待共享响应的最长时间，超时后各自转发
+         */
+        private Duration maxWait = Duration.ofSeconds(3);
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+
+        public List<String> getHeaders() {
+            return headers;
+        }
+
+        public void setHeaders(List<String> headers) {
+            this.headers = headers;
+        }
+
+        public DataSize getMaxResponseSize() {
+            return maxResponseSize;
+        }
+
+        public void setMaxResponseSize(DataSize maxResponseSize) {
+            this.maxResponseSize = maxResponseSize;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+    }
+}
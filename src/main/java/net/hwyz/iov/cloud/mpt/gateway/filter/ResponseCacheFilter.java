@@ -0,0 +1,384 @@
+package net.hwyz.iov.cloud.mpt.gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.hwyz.iov.cloud.mpt.gateway.metrics.FilterMetrics;
+import net.hwyz.iov.cloud.mpt.gateway.util.BodyCapture;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 响应缓存过滤器
+ * <p>
+ * 按路由缓存GET请求的200响应，缓存key包含鉴权得到的用户ID、路径与查询参数；按总字节数与存活时间淘汰，
+ * 可选将响应体放在直接内存中。命中时直接返回，If-None-Match与缓存的ETag一致时返回304，均不访问上游。
+ * 上游标记no-store、no-cache，或Vary了Accept-Encoding以外请求头的响应不缓存，private的响应只在按用户缓存时缓存。
+ * 同一路由的非GET请求成功后清空该路由的缓存。命中情况以gateway.response.cache指标暴露
+ *
+ * @author hwyz_leo
+ */
+@Component
+public class ResponseCacheFilter extends AbstractGatewayFilterFactory<ResponseCacheFilter.Config> {
+    private static final String DEFAULT_ROUTE = "default";
+
+    private static final String NO_STORE = "no-store";
+
+    private static final String NO_CACHE = "no-cache";
+
+    private static final String PRIVATE = "private";
+
+    private static final List<String> EXCLUDED_HEADERS = List.of(HttpHeaders.CONTENT_LENGTH, HttpHeaders.TRANSFER_ENCODING,
+            HttpHeaders.CONNECTION, HttpHeaders.SET_COOKIE, HttpHeaders.DATE, HttpHeaders.CONTENT_ENCODING, HttpHeaders.VARY);
+
+    @Autowired
+    private FilterMetrics filterMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 路由当前使用的缓存，路由刷新后替换为新缓存，指标始终指向当前缓存
+     */
+    private final Map<String, AtomicReference<Cache<String, CachedResponse>>> routeCaches = new ConcurrentHashMap<>();
+
+    public ResponseCacheFilter() {
+        super(Config.class);
+    }
+
+    @Override
+    public String name() {
+        return "ResponseCacheFilter";
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() == null ? DEFAULT_ROUTE : config.getRouteId();
+        Cache<String, CachedResponse> cache = Caffeine.newBuilder()
+                .maximumWeight(config.getMaxSize().toBytes())
+                .weigher((String key, CachedResponse value) -> key.length() + value.body.capacity())
+                .expireAfterWrite(config.getTtl())
+                .build();
+        routeCaches.computeIfAbsent(routeId, this::registerGauges).set(cache);
+        GatewayFilter filter = new ResponseCacheGatewayFilter(config, cache, routeId);
+        // 需在NettyWriteResponseFilter之前装饰响应
+        return new OrderedGatewayFilter(filterMetrics.timed(name(), filter), NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private AtomicReference<Cache<String, CachedResponse>> registerGauges(String routeId) {
+        AtomicReference<Cache<String, CachedResponse>> current = new AtomicReference<>();
+        Gauge.builder("gateway.response.cache.size", current, ref -> ref.get() == null ? 0 : ref.get().estimatedSize())
+                .description("响应缓存条数")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.response.cache.weight", current,
+                        ref -> ref.get() == null ? 0 : ref.get().policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                .description("响应缓存占用字节数")
+                .tag("route", routeId)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        return current;
+    }
+
+    private Counter resultCounter(String routeId, String result) {
+        return Counter.builder("gateway.response.cache")
+                .description("响应缓存查询次数，hit命中，not_modified命中并返回304，miss未命中")
+                .tag("route", routeId)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private class ResponseCacheGatewayFilter implements GatewayFilter {
+        private final Cache<String, CachedResponse> cache;
+
+        private final long maxEntrySize;
+
+        private final boolean perUser;
+
+        private final boolean offHeap;
+
+        private final Counter hitCounter;
+
+        private final Counter notModifiedCounter;
+
+        private final Counter missCounter;
+
+        private ResponseCacheGatewayFilter(Config config, Cache<String, CachedResponse> cache, String routeId) {
+            this.cache = cache;
+            this.maxEntrySize = config.getMaxEntrySize().toBytes();
+            this.perUser = config.isPerUser();
+            this.offHeap = config.isOffHeap();
+            this.hitCounter = resultCounter(routeId, "hit");
+            this.notModifiedCounter = resultCounter(routeId, "not_modified");
+            this.missCounter = resultCounter(routeId, "miss");
+        }
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            ServerHttpRequest request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET) {
+                // 数据可能已变化，清空该路由的缓存
+                return chain.filter(exchange).doOnSuccess(v -> {
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    if (status != null && status.is2xxSuccessful()) {
+                        cache.invalidateAll();
+                    }
+                });
+            }
+            String key = key(exchange);
+            CachedResponse cached = cache.getIfPresent(key);
+            if (cached != null) {
+                if (cached.matches(request.getHeaders().getIfNoneMatch())) {
+                    notModifiedCounter.increment();
+                    ServerHttpResponse response = exchange.getResponse();
+                    response.setStatusCode(HttpStatus.NOT_MODIFIED);
+                    response.getHeaders().setETag(cached.etag);
+                    return response.setComplete();
+                }
+                hitCounter.increment();
+                return cached.write(exchange.getResponse());
+            }
+            missCounter.increment();
+            return chain.filter(exchange.mutate().response(new CachingResponse(exchange.getResponse(), key)).build());
+        }
+
+        private String key(ServerWebExchange exchange) {
+            String userId = perUser ? exchange.getAttribute(AuthFilter.USER_ID_ATTR) : null;
+            String query = exchange.getRequest().getURI().getRawQuery();
+            String path = exchange.getRequest().getURI().getRawPath();
+            StringBuilder key = new StringBuilder(path.length() + 32);
+            if (userId != null) {
+                key.append(userId);
+            }
+            key.append('\n').append(path);
+            if (query != null) {
+                key.append('?').append(query);
+            }
+            return key.toString();
+        }
+
+        /**
+         * 转发响应体的同时复制一份，完整且未超过上限时放入缓存
+         */
+        private class CachingResponse extends ServerHttpResponseDecorator {
+            private final String key;
+
+            private CachingResponse(ServerHttpResponse delegate, String key) {
+                super(delegate);
+                this.key = key;
+            }
+
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                if (!isCacheable()) {
+                    return super.writeWith(body);
+                }
+                // 在内层装饰器（如响应压缩）改写响应头之前复制，缓存始终保存未编码的响应
+                HttpHeaders headers = CachedResponse.copyHeaders(getDelegate().getHeaders());
+                BodyCapture capture = new BodyCapture(maxEntrySize);
+                return super.writeWith(Flux.from(body)
+                        .doOnNext(capture::append)
+                        .doOnComplete(() -> {
+                            byte[] bytes = capture.toByteArray();
+                            if (bytes != null) {
+                                cache.put(key, new CachedResponse(headers, bytes, offHeap));
+                            }
+                        }));
+            }
+
+            private boolean isCacheable() {
+                HttpHeaders headers = getDelegate().getHeaders();
+                HttpStatusCode status = getDelegate().getStatusCode();
+                if (status == null || status.value() != HttpStatus.OK.value()) {
+                    return false;
+                }
+                if (headers.getContentLength() > maxEntrySize || headers.containsKey(HttpHeaders.SET_COOKIE)
+                        || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+                    return false;
+                }
+                String cacheControl = headers.getCacheControl();
+                if (cacheControl != null) {
+                    for (String directive : cacheControl.split(",")) {
+                        String name = directive.trim().toLowerCase();
+                        // private只在按用户缓存时允许
+                        if (name.startsWith(NO_STORE) || name.startsWith(NO_CACHE) || (!perUser && name.startsWith(PRIVATE))) {
+                            return false;
+                        }
+                    }
+                }
+                // 缓存key不含其他请求头，Vary其他请求头的响应不缓存
+                for (String vary : headers.getVary()) {
+                    if (!HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(vary.trim())) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 缓存的响应
+     */
+    private static class CachedResponse {
+        private final HttpHeaders headers;
+
+        private final ByteBuffer body;
+
+        private final String etag;
+
+        private CachedResponse(HttpHeaders copy, byte[] bytes, boolean offHeap) {
+            if (copy.getETag() == null) {
+                copy.setETag("\"" + DigestUtils.md5DigestAsHex(bytes) + "\"");
+            }
+            this.etag = copy.getETag();
+            this.headers = HttpHeaders.readOnlyHttpHeaders(copy);
+            this.body = offHeap ? ByteBuffer.allocateDirect(bytes.length).put(bytes).flip() : ByteBuffer.wrap(bytes);
+        }
+
+        private static HttpHeaders copyHeaders(HttpHeaders source) {
+            HttpHeaders copy = new HttpHeaders();
+            source.forEach((name, values) -> {
+                if (EXCLUDED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                    copy.put(name, new ArrayList<>(values));
+                }
+            });
+            return copy;
+        }
+
+        private boolean matches(List<String> ifNoneMatch) {
+            for (String tag : ifNoneMatch) {
+                if ("*".equals(tag) || stripWeak(tag).equals(stripWeak(etag))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static String stripWeak(String tag) {
+            return tag.startsWith("W/") ? tag.substring(2) : tag;
+        }
+
+        private Mono<Void> write(ServerHttpResponse response) {
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().putAll(headers);
+            response.getHeaders().setContentLength(body.remaining());
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body.duplicate())));
+        }
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return Arrays.asList("ttl", "maxSize", "offHeap");
+    }
+
+    public static class Config implements HasRouteId {
+        private String routeId;
+
+        /**
+         * 缓存存活时间
+         */
+        private Duration ttl = Duration.ofSeconds(60);
+
+        /**
+         * 路由缓存总大小
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+
+        /**
+         * 单个响应上限，超过时不缓存
+         */
+        private DataSize maxEntrySize = DataSize.ofMegabytes(1);
+
+        /**
+         * 是否按用户区分缓存
+         */
+        private boolean perUser = true;
+
+        /**
+         * 是否将响应体放在直接内存中
+         */
+        private boolean offHeap = false;
+
+        @Override
+        public String getRouteId() {
+            return routeId;
+        }
+
+        @Override
+        public void setRouteId(String routeId) {
+            this.routeId = routeId;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public DataSize getMaxEntrySize() {
+            return maxEntrySize;
+        }
+
+        public void setMaxEntrySize(DataSize maxEntrySize) {
+            this.maxEntrySize = maxEntrySize;
+        }
+
+        public boolean isPerUser() {
+            return perUser;
+        }
+
+        public void setPerUser(boolean perUser) {
+            this.perUser = perUser;
+        }
+
+        public boolean isOffHeap() {
+            return offHeap;
+        }
+
+        public void setOffHeap(boolean offHeap) {
+            this.offHeap = offHeap;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package net.hwyz.iov.cloud.mpt.gateway.filter;
+
+import io.netty.channel.ChannelOption;
+import net.hwyz.iov.cloud.mpt.gateway.config.GatewayHttpClientFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Exceptions;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 上游路由过滤器
+ * <p>
+ * 替换默认的NettyRoutingFilter，按路由选择HttpClient：
+ * 路由元数据中配置http2: true/false时使用对应协议；
+ * 路由元数据pool、路由ID或lb服务名在spring.cloud.gateway.httpclient.pools中配置了独立连接池时使用该连接池
+ *
+ * @author hwyz_leo
+ */
+public class UpstreamRoutingFilter extends NettyRoutingFilter {
+    public static final String HTTP2_ATTR = "http2";
+
+    public static final String POOL_ATTR = "pool";
+
+    private static final String LB_SCHEME = "lb";
+
+    private final HttpClientProperties properties;
+
+    private final GatewayHttpClientFactory httpClientFactory;
+
+    public UpstreamRoutingFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider,
+                                 HttpClientProperties properties, GatewayHttpClientFactory httpClientFactory) {
+        super(httpClient, headersFiltersProvider, properties);
+        this.properties = properties;
+        this.httpClientFactory = httpClientFactory;
+    }
+
+    @Override
+    protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+        Object http2 = route.getMetadata().get(HTTP2_ATTR);
+        String pool = resolvePool(route);
+        if (http2 == null && pool == null) {
+            return super.getHttpClient(route, exchange);
+        }
+        HttpClient httpClient;
+        try {
+            httpClient = httpClientFactory.getHttpClient(pool, http2 == null ? null : Boolean.parseBoolean(http2.toString()));
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
+        }
+        Object connectTimeout = route.getMetadata().get(RouteMetadataUtils.CONNECT_TIMEOUT_ATTR);
+        if (connectTimeout != null) {
+            httpClient = httpClient.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Integer.parseInt(connectTimeout.toString()));
+        }
+        return httpClient;
+    }
+
+    /**
+     * 解析路由使用的独立连接池，依次匹配路由元数据pool、路由ID、lb服务名
+     *
+     * @param route 路由
+     * @return 连接池键，未配置时为空
+     */
+    private String resolvePool(Route route) {
+        Map<String, HttpClientProperties.Pool> pools = properties.getPools();
+        if (pools.isEmpty()) {
+            return null;
+        }
+        Object pool = route.getMetadata().get(POOL_ATTR);
+        if (pool != null && pools.containsKey(pool.toString())) {
+            return pool.toString();
+        }
+        if (pools.containsKey(route.getId())) {
+            return route.getId();
+        }
+        URI uri = route.getUri();
+        if (LB_SCHEME.equals(uri.getScheme()) && uri.getHost() != null && pools.containsKey(uri.getHost())) {
+            return uri.getHost();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,72 @@
+package net.hwyz.iov.cloud.mpt.gateway.filter;
+
+import jakarta.annotation.PostConstruct;
+import net.hwyz.iov.cloud.mpt.gateway.limit.UserRateLimiter;
+import net.hwyz.iov.cloud.mpt.gateway.metrics.FilterMetrics;
+import net.hwyz.iov.cloud.mpt.gateway.util.RejectResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户级限流过滤器
+ * <p>
+ * 在鉴权之后执行，按路由和鉴权得到的用户ID限流，白名单等无用户的请求不限流
+ *
+ * @author hwyz_leo
+ */
+@Component
+public class UserRateLimitFilter implements GlobalFilter, Ordered {
+    private static final RejectResponse TOO_MANY_REQUESTS = RejectResponse.withStatus("请求过于频繁，请稍候再试", HttpStatus.TOO_MANY_REQUESTS);
+
+    @Autowired
+    private UserRateLimiter userRateLimiter;
+
+    @Autowired
+    private FilterMetrics filterMetrics;
+
+    private final GatewayFilter delegate = this::doFilter;
+
+    private FilterMetrics.Recorder recorder;
+
+    @PostConstruct
+    public void init() {
+        recorder = filterMetrics.recorder("UserRateLimitFilter");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return recorder.record(exchange, chain, delegate);
+    }
+
+    private Mono<Void> doFilter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String userId = exchange.getAttribute(AuthFilter.USER_ID_ATTR);
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (userId == null || route == null) {
+            return chain.filter(exchange);
+        }
+        long wait = userRateLimiter.tryAcquire(route.getId(), userId);
+        if (wait == 0) {
+            return chain.filter(exchange);
+        }
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        return TOO_MANY_REQUESTS.write(exchange.getResponse());
+    }
+
+    @Override
+    public int getOrder() {
+        return -150;
+    }
+}
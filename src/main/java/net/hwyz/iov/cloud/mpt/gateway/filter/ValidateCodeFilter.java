@@ -1,23 +1,19 @@
 package net.hwyz.iov.cloud.mpt.gateway.filter;
 
 import cn.hutool.core.util.StrUtil;
-import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONObject;
-import net.hwyz.iov.cloud.framework.common.util.ServletUtil;
 import net.hwyz.iov.cloud.mpt.gateway.config.properties.CaptchaProperties;
+import net.hwyz.iov.cloud.mpt.gateway.metrics.FilterMetrics;
 import net.hwyz.iov.cloud.mpt.gateway.service.ValidateCodeService;
+import net.hwyz.iov.cloud.mpt.gateway.util.CachedRequestBody;
+import net.hwyz.iov.cloud.mpt.gateway.util.RejectResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
-import org.springframework.core.io.buffer.DataBuffer;
-import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DataBufferLimitException;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
-import reactor.core.publisher.Flux;
-
-import java.nio.CharBuffer;
-import java.nio.charset.StandardCharsets;
-import java.util.concurrent.atomic.AtomicReference;
+import reactor.core.publisher.Mono;
 
 /**
  * 验证码过滤器
@@ -28,19 +24,29 @@ import java.util.concurrent.atomic.AtomicReference;
 public class ValidateCodeFilter extends AbstractGatewayFilterFactory<Object> {
     private final static String[] VALIDATE_URL = new String[]{"/auth/login", "/auth/register"};
 
+    /**
+     * 登录/注册请求体大小上限
+     */
+    private static final int MAX_BODY_SIZE = 16 * 1024;
+
+    private static final RejectResponse BODY_TOO_LARGE = RejectResponse.of("请求体过大");
+
     @Autowired
     private ValidateCodeService validateCodeService;
 
     @Autowired
     private CaptchaProperties captchaProperties;
 
+    @Autowired
+    private FilterMetrics filterMetrics;
+
     private static final String CODE = "code";
 
     private static final String UUID = "uuid";
 
     @Override
     public GatewayFilter apply(Object config) {
-        return (exchange, chain) -> {
+        return filterMetrics.timed(name(), (exchange, chain) -> {
             ServerHttpRequest request = exchange.getRequest();
 
             // 非登录/注册请求或验证码关闭，不处理
@@ -48,26 +54,17 @@ public class ValidateCodeFilter extends AbstractGatewayFilterFactory<Object> {
                 return chain.filter(exchange);
             }
 
-            try {
-                String rspStr = resolveBodyFromRequest(request);
-                JSONObject obj = JSON.parseObject(rspStr);
-                validateCodeService.checkCaptcha(obj.getString(CODE), obj.getString(UUID));
-            } catch (Exception e) {
-                return ServletUtil.webFluxResponseWriter(exchange.getResponse(), e.getMessage());
-            }
-            return chain.filter(exchange);
-        };
-    }
-
-    private String resolveBodyFromRequest(ServerHttpRequest serverHttpRequest) {
-        // 获取请求体
-        Flux<DataBuffer> body = serverHttpRequest.getBody();
-        AtomicReference<String> bodyRef = new AtomicReference<>();
-        body.subscribe(buffer -> {
-            CharBuffer charBuffer = StandardCharsets.UTF_8.decode(buffer.asByteBuffer());
-            DataBufferUtils.release(buffer);
-            bodyRef.set(charBuffer.toString());
+            return CachedRequestBody.resolve(exchange, MAX_BODY_SIZE)
+                    .flatMap(body -> {
+                        JSONObject obj = body.fields(CODE, UUID);
+                        return validateCodeService.checkCaptcha(obj.getString(CODE), obj.getString(UUID))
+                                .thenReturn(Boolean.TRUE)
+                                .onErrorResume(e -> RejectResponse.writeMessage(exchange.getResponse(), e.getMessage())
+                                        .thenReturn(Boolean.FALSE))
+                                .flatMap(passed -> passed ? chain.filter(body.decorate(exchange)) : Mono.empty());
+                    })
+                    .onErrorResume(DataBufferLimitException.class,
+                            e -> BODY_TOO_LARGE.write(exchange.getResponse()));
         });
-        return bodyRef.get();
     }
 }
@@ -1,17 +1,28 @@
 package net.hwyz.iov.cloud.mpt.gateway.filter;
 
 import cn.hutool.core.util.StrUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.netty.buffer.ByteBufAllocator;
-import net.hwyz.iov.cloud.framework.common.util.EscapeUtil;
+import jakarta.annotation.PostConstruct;
 import net.hwyz.iov.cloud.mpt.gateway.config.properties.XssProperties;
+import net.hwyz.iov.cloud.mpt.gateway.metrics.FilterMetrics;
+import net.hwyz.iov.cloud.mpt.gateway.util.CachedRequestBody;
+import net.hwyz.iov.cloud.mpt.gateway.util.JsonXssSanitizer;
+import net.hwyz.iov.cloud.mpt.gateway.util.RejectResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
-import org.springframework.core.io.buffer.*;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
@@ -20,10 +31,6 @@ import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
-
-import static net.hwyz.iov.cloud.mpt.gateway.filter.AuthFilter.matches;
-
 /**
  * 跨站脚本过滤器
  *
@@ -32,12 +39,51 @@ import static net.hwyz.iov.cloud.mpt.gateway.filter.AuthFilter.matches;
 @Component
 @ConditionalOnProperty(value = "security.xss.enabled", havingValue = "true")
 public class XssFilter implements GlobalFilter, Ordered {
+    private static final RejectResponse BODY_TOO_LARGE = RejectResponse.withStatus("请求体过大", HttpStatus.PAYLOAD_TOO_LARGE);
+
+    private static final NettyDataBufferFactory BUFFER_FACTORY = new NettyDataBufferFactory(ByteBufAllocator.DEFAULT);
+
     // 跨站脚本的 xss 配置，nacos自行添加
     @Autowired
     private XssProperties xss;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private FilterMetrics filterMetrics;
+
+    private final GatewayFilter delegate = this::doFilter;
+
+    private FilterMetrics.Recorder recorder;
+
+    private Counter passthroughCounter;
+
+    private Counter rewrittenCounter;
+
+    private Counter streamedCounter;
+
+    @PostConstruct
+    public void init() {
+        passthroughCounter = bodyCounter("passthrough");
+        rewrittenCounter = bodyCounter("rewritten");
+        streamedCounter = bodyCounter("streamed");
+        recorder = filterMetrics.recorder("XssFilter");
+    }
+
+    private Counter bodyCounter(String outcome) {
+        return Counter.builder("gateway.xss.bodies")
+                .description("XSS过滤请求体数量，passthrough原样转发，rewritten清洗改写，streamed超过扫描上限流式清洗")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return recorder.record(exchange, chain, delegate);
+    }
+
+    private Mono<Void> doFilter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
         // xss开关未开启 或 通过nacos关闭，不过滤
         if (!xss.getEnabled()) {
@@ -54,34 +100,59 @@ public class XssFilter implements GlobalFilter, Ordered {
         }
         // excludeUrls 不过滤
         String url = request.getURI().getPath();
-        if (matches(url, xss.getExcludeUrls())) {
+        if (xss.getExcludeUrlsIndex().matches(url)) {
+            return chain.filter(exchange);
+        }
+        long contentLength = request.getHeaders().getContentLength();
+        if (contentLength == 0) {
             return chain.filter(exchange);
         }
+        // 小请求体聚合后先扫描，无需清洗时零拷贝原样转发，聚合结果供后续过滤器复用
+        if (contentLength > 0 && contentLength <= xss.getScanLimit()) {
+            return CachedRequestBody.resolve(exchange, xss.getScanLimit())
+                    .flatMap(body -> {
+                        // 前序过滤器已溢出到临时文件的请求体不在内存中扫描
+                        if (body.isEmpty() || !body.isInMemory() || !JsonXssSanitizer.needsSanitize(body.getBody())) {
+                            passthroughCounter.increment();
+                            return chain.filter(body.decorate(exchange));
+                        }
+                        rewrittenCounter.increment();
+                        CachedRequestBody sanitized = CachedRequestBody.of(sanitize(body.getBody()));
+                        sanitized.bind(exchange);
+                        return chain.filter(sanitized.decorate(exchange));
+                    })
+                    .onErrorResume(DataBufferLimitException.class, e -> BODY_TOO_LARGE.write(exchange.getResponse()));
+        }
+        streamedCounter.increment();
         ServerHttpRequestDecorator httpRequestDecorator = requestDecorator(exchange);
         return chain.filter(exchange.mutate().request(httpRequestDecorator).build());
 
     }
 
+    /**
+     * 整体清洗已聚合的请求体，原请求体仍由缓存持有
+     */
+    private DataBuffer sanitize(DataBuffer body) {
+        JsonXssSanitizer sanitizer = new JsonXssSanitizer(BUFFER_FACTORY);
+        DataBuffer sanitized = sanitizer.sanitize(DataBufferUtils.retain(body));
+        DataBuffer rest = sanitizer.finish();
+        if (rest != null) {
+            sanitized.write(rest);
+            DataBufferUtils.release(rest);
+        }
+        return sanitized;
+    }
+
     private ServerHttpRequestDecorator requestDecorator(ServerWebExchange exchange) {
         ServerHttpRequestDecorator serverHttpRequestDecorator = new ServerHttpRequestDecorator(exchange.getRequest()) {
             @Override
             public Flux<DataBuffer> getBody() {
-                Flux<DataBuffer> body = super.getBody();
-                return body.buffer().map(dataBuffers -> {
-                    DataBufferFactory dataBufferFactory = new DefaultDataBufferFactory();
-                    DataBuffer join = dataBufferFactory.join(dataBuffers);
-                    byte[] content = new byte[join.readableByteCount()];
-                    join.read(content);
-                    DataBufferUtils.release(join);
-                    String bodyStr = new String(content, StandardCharsets.UTF_8);
-                    // 防xss攻击过滤
-                    bodyStr = EscapeUtil.clean(bodyStr);
-                    // 转成字节
-                    byte[] bytes = bodyStr.getBytes(StandardCharsets.UTF_8);
-                    NettyDataBufferFactory nettyDataBufferFactory = new NettyDataBufferFactory(ByteBufAllocator.DEFAULT);
-                    DataBuffer buffer = nettyDataBufferFactory.allocateBuffer(bytes.length);
-                    buffer.write(bytes);
-                    return buffer;
+                // 按数据块流式清洗，每次订阅使用新的清洗状态
+                return Flux.defer(() -> {
+                    JsonXssSanitizer sanitizer = new JsonXssSanitizer(BUFFER_FACTORY);
+                    return super.getBody()
+                            .map(sanitizer::sanitize)
+                            .concatWith(Mono.fromSupplier(sanitizer::finish));
                 });
             }
 
@@ -1,7 +1,12 @@
 package net.hwyz.iov.cloud.mpt.gateway.handler;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
-import net.hwyz.iov.cloud.framework.common.util.ServletUtil;
+import net.hwyz.iov.cloud.mpt.gateway.util.LogThrottle;
+import net.hwyz.iov.cloud.mpt.gateway.util.RejectResponse;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.web.reactive.error.ErrorWebExceptionHandler;
 import org.springframework.cloud.gateway.support.NotFoundException;
 import org.springframework.context.annotation.Configuration;
@@ -11,6 +16,8 @@ import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+
 /**
  * 网关统一异常处理
  *
@@ -20,6 +27,37 @@ import reactor.core.publisher.Mono;
 @Order(-1)
 @Configuration
 public class GatewayExceptionHandler implements ErrorWebExceptionHandler {
+    private static final RejectResponse NOT_FOUND = RejectResponse.of("服务未找到");
+
+    private static final RejectResponse INTERNAL_ERROR = RejectResponse.of("内部服务器错误");
+
+    /**
+     * 异常日志最小间隔，期间的异常只计数
+     */
+    private final LogThrottle logThrottle = new LogThrottle(Duration.ofSeconds(10));
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter notFoundCounter;
+
+    private Counter statusCounter;
+
+    private Counter internalCounter;
+
+    @PostConstruct
+    public void init() {
+        notFoundCounter = errorCounter("not_found");
+        statusCounter = errorCounter("status");
+        internalCounter = errorCounter("internal");
+    }
+
+    private Counter errorCounter(String type) {
+        return Counter.builder("gateway.errors")
+                .description("网关统一异常处理的异常数")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
 
     @Override
     public Mono<Void> handle(ServerWebExchange exchange, Throwable ex) {
@@ -29,19 +67,29 @@ public class GatewayExceptionHandler implements ErrorWebExceptionHandler {
             return Mono.error(ex);
         }
 
-        String msg;
+        // 固定提示信息使用预编码响应，ResponseStatusException的提示信息随请求变化，写出时再编码
+        RejectResponse rejectResponse = null;
+        String msg = null;
+        Counter counter;
 
         if (ex instanceof NotFoundException) {
-            msg = "服务未找到";
+            rejectResponse = NOT_FOUND;
+            counter = notFoundCounter;
         } else if (ex instanceof ResponseStatusException) {
             ResponseStatusException responseStatusException = (ResponseStatusException) ex;
             msg = responseStatusException.getMessage();
+            counter = statusCounter;
         } else {
-            msg = "内部服务器错误";
+            rejectResponse = INTERNAL_ERROR;
+            counter = internalCounter;
         }
 
-        logger.error("[网关异常处理]请求路径:{},异常信息:{}", exchange.getRequest().getPath(), ex.getMessage());
+        counter.increment();
+        long suppressed = logThrottle.tryAcquire();
+        if (suppressed >= 0) {
+            logger.error("[网关异常处理]请求路径:{},异常信息:{},此前省略{}条", exchange.getRequest().getPath(), ex.getMessage(), suppressed);
+        }
 
-        return ServletUtil.webFluxResponseWriter(response, msg);
+        return rejectResponse != null ? rejectResponse.write(response) : RejectResponse.writeMessage(response, msg);
     }
 }
\ No newline at end of file
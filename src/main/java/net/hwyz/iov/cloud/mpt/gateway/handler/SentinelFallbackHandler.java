@@ -2,7 +2,7 @@ package net.hwyz.iov.cloud.mpt.gateway.handler;
 
 import com.alibaba.csp.sentinel.adapter.gateway.sc.callback.GatewayCallbackManager;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
-import net.hwyz.iov.cloud.framework.common.util.ServletUtil;
+import net.hwyz.iov.cloud.mpt.gateway.util.RejectResponse;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebExceptionHandler;
@@ -14,8 +14,13 @@ import reactor.core.publisher.Mono;
  * @author hwyz_leo
  */
 public class SentinelFallbackHandler implements WebExceptionHandler {
+    /**
+     * 限流响应，网关内其他限流过滤器共用
+     */
+    public static final RejectResponse BLOCKED = RejectResponse.of("请求超过最大数，请稍候再试");
+
     private Mono<Void> writeResponse(ServerResponse response, ServerWebExchange exchange) {
-        return ServletUtil.webFluxResponseWriter(exchange.getResponse(), "请求超过最大数，请稍候再试");
+        return BLOCKED.write(exchange.getResponse());
     }
 
     @Override
@@ -1,9 +1,11 @@
 package net.hwyz.iov.cloud.mpt.gateway.handler;
 
 import net.hwyz.iov.cloud.framework.common.web.domain.AjaxResult;
-import net.hwyz.iov.cloud.mpt.gateway.exception.CaptchaException;
+import net.hwyz.iov.cloud.mpt.gateway.captcha.CaptchaImage;
 import net.hwyz.iov.cloud.mpt.gateway.service.ValidateCodeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.BodyInserters;
@@ -12,7 +14,7 @@ import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import reactor.core.publisher.Mono;
 
-import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 验证码获取
@@ -21,17 +23,58 @@ import java.io.IOException;
  */
 @Component
 public class ValidateCodeHandler implements HandlerFunction<ServerResponse> {
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    /**
+     * 响应模式参数，mode=binary时直接返回图片字节
+     */
+    private static final String MODE_PARAM = "mode";
+
+    private static final String MODE_BINARY = "binary";
+
+    /**
+     * 二进制模式下返回验证码唯一标识的响应头
+     */
+    public static final String CAPTCHA_UUID_HEADER = "Captcha-Uuid";
+
+    /**
+     * 二进制模式下返回验证码开关的响应头
+     */
+    public static final String CAPTCHA_ENABLED_HEADER = "Captcha-Enabled";
+
     @Autowired
     private ValidateCodeService validateCodeService;
 
     @Override
     public Mono<ServerResponse> handle(ServerRequest serverRequest) {
-        AjaxResult ajax;
-        try {
-            ajax = validateCodeService.createCaptcha();
-        } catch (CaptchaException | IOException e) {
-            return Mono.error(e);
+        Mono<ServerResponse> response;
+        if (MODE_BINARY.equals(serverRequest.queryParam(MODE_PARAM).orElse(null))) {
+            response = validateCodeService.createCaptchaImage()
+                    .flatMap(this::imageResponse)
+                    .switchIfEmpty(Mono.defer(() -> ServerResponse.noContent()
+                            .header(CAPTCHA_ENABLED_HEADER, Boolean.FALSE.toString()).build()));
+        } else {
+            response = validateCodeService.createCaptcha()
+                    .flatMap(ajax -> ServerResponse.status(HttpStatus.OK).body(BodyInserters.fromValue(ajax)));
         }
-        return ServerResponse.status(HttpStatus.OK).body(BodyInserters.fromValue(ajax));
+        return response
+                // 渲染队列已满，快速返回可重试状态
+                .onErrorResume(RejectedExecutionException.class, e -> ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                        .body(BodyInserters.fromValue(AjaxResult.error("验证码服务繁忙，请稍候再试"))));
+    }
+
+    /**
+     * 直接输出图片字节，预生成图片以零拷贝方式包装为响应缓冲
+     */
+    private Mono<ServerResponse> imageResponse(CaptchaImage captchaImage) {
+        byte[] image = captchaImage.getCaptcha().getImage();
+        return ServerResponse.status(HttpStatus.OK)
+                .contentType(captchaImage.getCaptcha().getContentType())
+                .contentLength(image.length)
+                .cacheControl(CacheControl.noStore())
+                .header(CAPTCHA_UUID_HEADER, captchaImage.getUuid())
+                .header(CAPTCHA_ENABLED_HEADER, Boolean.TRUE.toString())
+                .body((message, context) -> message.writeWith(Mono.fromSupplier(() -> message.bufferFactory().wrap(image))));
     }
 }
@@ -0,0 +1,88 @@
+package net.hwyz.iov.cloud.mpt.gateway.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.hwyz.iov.cloud.mpt.gateway.config.properties.ConcurrencyLimitProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 路由并发限制
+ * <p>
+ * 每个路由一个自适应并发限制，当前限制与并发数以gateway.concurrency.limit、gateway.concurrency.inflight指标暴露
+ *
+ * @author hwyz_leo
+ */
+@Component
+public class ConcurrencyLimiter {
+    @Autowired
+    private ConcurrencyLimitProperties concurrencyLimitProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, RouteLimit> routes = new ConcurrentHashMap<>();
+
+    /**
+     * 获取路由的并发限制
+     *
+     * @param routeId 路由ID
+     */
+    public RouteLimit get(String routeId) {
+        RouteLimit routeLimit = routes.get(routeId);
+        if (routeLimit == null) {
+            routeLimit = routes.computeIfAbsent(routeId, RouteLimit::new);
+        }
+        return routeLimit;
+    }
+
+    /**
+     * 单个路由的并发限制
+     */
+    public class RouteLimit {
+        private final GradientConcurrencyLimit limit = new GradientConcurrencyLimit(concurrencyLimitProperties);
+
+        private final Counter rejected;
+
+        private RouteLimit(String routeId) {
+            Gauge.builder("gateway.concurrency.limit", limit, GradientConcurrencyLimit::getLimit)
+                    .description("路由当前并发限制")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.concurrency.inflight", limit, GradientConcurrencyLimit::getInFlight)
+                    .description("路由当前并发数")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+            rejected = Counter.builder("gateway.concurrency.rejected")
+                    .description("超过并发限制被拒绝的请求数")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * 占用一个并发名额
+         *
+         * @return 超过限制时返回false
+         */
+        public boolean tryAcquire() {
+            if (limit.tryAcquire()) {
+                return true;
+            }
+            rejected.increment();
+            return false;
+        }
+
+        /**
+         * 释放并发名额
+         *
+         * @param rtt 请求耗时（纳秒），小于等于0时不作为样本
+         */
+        public void release(long rtt) {
+            limit.release(rtt);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package net.hwyz.iov.cloud.mpt.gateway.limit;
+
+import net.hwyz.iov.cloud.mpt.gateway.config.properties.ConcurrencyLimitProperties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于延迟梯度的自适应并发限制
+ * <p>
+ * 以长期延迟的指数平均作为无排队时的基准，与当次延迟之比作为梯度：延迟上升时按梯度收缩限制，
+ * 延迟平稳时每次增加限制的平方根作为排队余量。并发不足限制一半时不采样，避免低负载下限制无限增长。
+ * 样本以LongAdder累加，每个采样窗口结束时由一个线程（CAS抢占）以窗口平均延迟重新计算一次限制，请求路径上无锁
+ *
+ * @author hwyz_leo
+ */
+public class GradientConcurrencyLimit {
+    /**
+     * 长期延迟指数平均的预热样本数，预热期内取算术平均
+     */
+    private static final int WARMUP_SAMPLES = 10;
+
+    private final ConcurrencyLimitProperties properties;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder rttSum = new LongAdder();
+
+    private final LongAdder rttCount = new LongAdder();
+
+    /**
+     * 当前采样窗口的结束时间（纳秒）
+     */
+    private final AtomicLong windowEnd = new AtomicLong(System.nanoTime());
+
+    private volatile double limit;
+
+    private volatile double longRtt;
+
+    private volatile int samples;
+
+    public GradientConcurrencyLimit(ConcurrencyLimitProperties properties) {
+        this.properties = properties;
+        this.limit = properties.getInitialLimit();
+    }
+
+    /**
+     * 占用一个并发名额
+     *
+     * @return 超过限制时返回false
+     */
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > (int) limit) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 释放并发名额
+     *
+     * @param rtt    请求耗时（纳秒），小于等于0时不作为样本
+     */
+    public void release(long rtt) {
+        int current = inFlight.getAndDecrement();
+        if (rtt <= 0 || current < limit / 2) {
+            return;
+        }
+        rttSum.add(rtt);
+        rttCount.increment();
+        long now = System.nanoTime();
+        long end = windowEnd.get();
+        if (now - end >= 0
+                && windowEnd.compareAndSet(end, now + TimeUnit.MILLISECONDS.toNanos(properties.getSampleWindowMillis()))) {
+            long count = rttCount.sumThenReset();
+            long sum = rttSum.sumThenReset();
+            if (count > 0) {
+                update((double) sum / count);
+            }
+        }
+    }
+
+    /**
+     * 以窗口平均延迟重新计算限制，同一时刻只有抢占到窗口的线程执行
+     */
+    private void update(double rtt) {
+        double longRtt = this.longRtt;
+        int samples = this.samples;
+        if (samples < WARMUP_SAMPLES) {
+            samples++;
+            longRtt += (rtt - longRtt) / samples;
+        } else {
+            longRtt += (rtt - longRtt) * 2 / (properties.getLongWindow() + 1);
+        }
+        // 长期延迟明显高于当前延迟时（如负载下降后），加快回落
+        if (longRtt / rtt > 2) {
+            longRtt *= 0.95;
+        }
+        this.longRtt = longRtt;
+        this.samples = samples;
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getRttTolerance() * longRtt / rtt));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        double smoothing = properties.getSmoothing();
+        estimate = limit * (1 - smoothing) + estimate * smoothing;
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), estimate));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
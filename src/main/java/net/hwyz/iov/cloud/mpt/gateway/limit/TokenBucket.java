@@ -0,0 +1,40 @@
+package net.hwyz.iov.cloud.mpt.gateway.limit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶
+ * <p>
+ * 按GCRA算法实现，只保存理论到达时间（TAT），一次CAS完成取令牌；速率与容量在取令牌时传入，配置刷新后立即生效
+ *
+ * @author hwyz_leo
+ */
+public class TokenBucket {
+    /**
+     * 理论到达时间（纳秒）
+     */
+    private final AtomicLong tat = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * 取一个令牌
+     *
+     * @param now               当前时间（纳秒）
+     * @param emissionInterval  补充一个令牌的间隔（纳秒）
+     * @param burstCapacity     令牌桶容量
+     * @return 0表示取到令牌，否则为需要等待的纳秒数
+     */
+    public long tryAcquire(long now, long emissionInterval, int burstCapacity) {
+        long tolerance = emissionInterval * (burstCapacity - 1);
+        while (true) {
+            long current = tat.get();
+            long start = current == Long.MIN_VALUE ? now : Math.max(current, now);
+            long wait = start - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (tat.compareAndSet(current, start + emissionInterval)) {
+                return 0;
+            }
+        }
+    }
+}
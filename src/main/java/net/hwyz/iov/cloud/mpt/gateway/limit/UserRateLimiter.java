@@ -0,0 +1,81 @@
+package net.hwyz.iov.cloud.mpt.gateway.limit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.hwyz.iov.cloud.mpt.gateway.config.properties.RateLimitProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户级限流
+ * <p>
+ * 每个路由一组按用户ID划分的本地令牌桶，空闲令牌桶按访问时间回收，判定全部在本地完成，不访问Redis。
+ * 配额修改即时生效，桶数上限与回收时长对已创建的路由在重启后生效
+ *
+ * @author hwyz_leo
+ */
+@Component
+public class UserRateLimiter {
+    @Autowired
+    private RateLimitProperties rateLimitProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, RouteBuckets> routes = new ConcurrentHashMap<>();
+
+    /**
+     * 取一个令牌
+     *
+     * @param routeId 路由ID
+     * @param userId  用户ID
+     * @return 0表示放行，否则为建议重试的等待纳秒数
+     */
+    public long tryAcquire(String routeId, String userId) {
+        if (!rateLimitProperties.getEnabled()) {
+            return 0;
+        }
+        RateLimitProperties.Quota quota = rateLimitProperties.getRoutes().getOrDefault(routeId, rateLimitProperties.getDefaultQuota());
+        if (quota == null || quota.getReplenishRate() == null || quota.getReplenishRate() <= 0) {
+            return 0;
+        }
+        long emissionInterval = (long) (TimeUnit.SECONDS.toNanos(1) / quota.getReplenishRate());
+        int burstCapacity = quota.getBurstCapacity() == null ? 1 : Math.max(quota.getBurstCapacity(), 1);
+        RouteBuckets buckets = routes.get(routeId);
+        if (buckets == null) {
+            buckets = routes.computeIfAbsent(routeId, RouteBuckets::new);
+        }
+        long wait = buckets.buckets.get(userId, key -> new TokenBucket())
+                .tryAcquire(System.nanoTime(), emissionInterval, burstCapacity);
+        if (wait > 0) {
+            buckets.rejected.increment();
+        }
+        return wait;
+    }
+
+    /**
+     * 单个路由的令牌桶
+     */
+    private class RouteBuckets {
+        private final Cache<String, TokenBucket> buckets;
+
+        private final Counter rejected;
+
+        private RouteBuckets(String routeId) {
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(rateLimitProperties.getMaximumSize())
+                    .expireAfterAccess(rateLimitProperties.getIdleSeconds(), TimeUnit.SECONDS)
+                    .build();
+            this.rejected = Counter.builder("gateway.ratelimit.rejected")
+                    .description("用户级限流拒绝的请求数")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+        }
+    }
+}
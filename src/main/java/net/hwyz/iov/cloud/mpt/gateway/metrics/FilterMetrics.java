@@ -0,0 +1,189 @@
+package net.hwyz.iov.cloud.mpt.gateway.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 过滤器耗时指标
+ * <p>
+ * 记录过滤器自身的耗时：从进入过滤器到调用下游（pass），或过滤器自行结束请求（reject）、出错（error）为止，
+ * 不包含下游过滤器与后端服务的耗时。指标名gateway.filter，按filter、route、outcome打标签，
+ * 计时器按路由缓存，记录时无需再次查找注册表
+ *
+ * @author hwyz_leo
+ */
+@Component
+public class FilterMetrics {
+    /**
+     * 指标名
+     */
+    public static final String METRIC_NAME = "gateway.filter";
+
+    private static final String UNKNOWN_ROUTE = "unknown";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+
+    /**
+     * 获取过滤器的指标记录器
+     *
+     * @param filterName 过滤器名称
+     */
+    public Recorder recorder(String filterName) {
+        return recorders.computeIfAbsent(filterName, Recorder::new);
+    }
+
+    /**
+     * 包装路由过滤器，保留原有顺序
+     *
+     * @param filterName 过滤器名称
+     * @param filter     路由过滤器
+     */
+    public GatewayFilter timed(String filterName, GatewayFilter filter) {
+        Recorder recorder = recorder(filterName);
+        GatewayFilter timed = (exchange, chain) -> recorder.record(exchange, chain, filter);
+        if (filter instanceof Ordered ordered) {
+            return new OrderedGatewayFilter(timed, ordered.getOrder());
+        }
+        return timed;
+    }
+
+    /**
+     * 结果
+     */
+    enum Outcome {
+        /**
+         * 调用了下游
+         */
+        PASS,
+        /**
+         * 过滤器自行结束了请求
+         */
+        REJECT,
+        /**
+         * 过滤器出错
+         */
+        ERROR;
+
+        private final String tag = name().toLowerCase();
+    }
+
+    /**
+     * 单个过滤器的指标记录器
+     */
+    public class Recorder {
+        private final String filterName;
+
+        private final Map<String, Timer[]> timers = new ConcurrentHashMap<>();
+
+        private Recorder(String filterName) {
+            this.filterName = filterName;
+        }
+
+        /**
+         * 执行过滤器并记录耗时
+         *
+         * @param exchange HTTP请求
+         * @param chain    过滤器链
+         * @param filter   过滤器逻辑
+         */
+        public Mono<Void> record(ServerWebExchange exchange, GatewayFilterChain chain, GatewayFilter filter) {
+            Sample sample = new Sample(exchange, chain);
+            Mono<Void> result;
+            try {
+                result = filter.filter(exchange, sample);
+            } catch (RuntimeException e) {
+                sample.stop(Outcome.ERROR);
+                throw e;
+            }
+            // 同步调用了下游的过滤器已记录完毕，不再附加操作符
+            if (sample.stopped) {
+                return result;
+            }
+            return result.doFinally(signalType -> {
+                if (signalType == SignalType.ON_COMPLETE) {
+                    sample.stop(Outcome.REJECT);
+                } else if (signalType == SignalType.ON_ERROR) {
+                    sample.stop(Outcome.ERROR);
+                }
+            });
+        }
+
+        private Timer timer(ServerWebExchange exchange, Outcome outcome) {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route == null ? UNKNOWN_ROUTE : route.getId();
+            Timer[] routeTimers = timers.get(routeId);
+            if (routeTimers == null) {
+                routeTimers = timers.computeIfAbsent(routeId, this::register);
+            }
+            return routeTimers[outcome.ordinal()];
+        }
+
+        private Timer[] register(String routeId) {
+            Outcome[] outcomes = Outcome.values();
+            Timer[] routeTimers = new Timer[outcomes.length];
+            for (Outcome outcome : outcomes) {
+                routeTimers[outcome.ordinal()] = Timer.builder(METRIC_NAME)
+                        .description("网关过滤器自身耗时，不含下游")
+                        .tag("filter", filterName)
+                        .tag("route", routeId)
+                        .tag("outcome", outcome.tag)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofNanos(1000))
+                        .maximumExpectedValue(Duration.ofSeconds(1))
+                        .register(meterRegistry);
+            }
+            return routeTimers;
+        }
+
+        /**
+         * 单次执行的计时，同时作为下游过滤器链的代理，调用下游即视为通过
+         */
+        private class Sample implements GatewayFilterChain {
+            private final ServerWebExchange exchange;
+
+            private final GatewayFilterChain chain;
+
+            private final long start = System.nanoTime();
+
+            private boolean stopped;
+
+            private Sample(ServerWebExchange exchange, GatewayFilterChain chain) {
+                this.exchange = exchange;
+                this.chain = chain;
+            }
+
+            @Override
+            public Mono<Void> filter(ServerWebExchange exchange) {
+                stop(Outcome.PASS);
+                return chain.filter(exchange);
+            }
+
+            private void stop(Outcome outcome) {
+                if (stopped) {
+                    return;
+                }
+                stopped = true;
+                timer(exchange, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -2,9 +2,8 @@ package net.hwyz.iov.cloud.mpt.gateway.service;
 
 
 import net.hwyz.iov.cloud.framework.common.web.domain.AjaxResult;
-import net.hwyz.iov.cloud.mpt.gateway.exception.CaptchaException;
-
-import java.io.IOException;
+import net.hwyz.iov.cloud.mpt.gateway.captcha.CaptchaImage;
+import reactor.core.publisher.Mono;
 
 /**
  * 验证码处理
@@ -15,10 +14,15 @@ public interface ValidateCodeService {
     /**
      * 生成验证码
      */
-    public AjaxResult createCaptcha() throws IOException, CaptchaException;
+    public Mono<AjaxResult> createCaptcha();
+
+    /**
+     * 生成验证码（二进制图片模式），验证码关闭时返回空
+     */
+    public Mono<CaptchaImage> createCaptchaImage();
 
     /**
-     * 校验验证码
+     * 校验验证码，校验失败时以CaptchaException结束
      */
-    public void checkCaptcha(String key, String value) throws CaptchaException;
+    public Mono<Void> checkCaptcha(String key, String value);
 }
@@ -3,23 +3,22 @@ package net.hwyz.iov.cloud.mpt.gateway.service.impl;
 import cn.hutool.core.codec.Base64;
 import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.StrUtil;
-import com.google.code.kaptcha.Producer;
-import jakarta.annotation.Resource;
 import net.hwyz.iov.cloud.framework.common.constant.CacheConstants;
 import net.hwyz.iov.cloud.framework.common.constant.Constants;
 import net.hwyz.iov.cloud.framework.common.web.domain.AjaxResult;
-import net.hwyz.iov.cloud.framework.redis.service.RedisService;
+import net.hwyz.iov.cloud.mpt.gateway.captcha.Captcha;
+import net.hwyz.iov.cloud.mpt.gateway.captcha.CaptchaImage;
+import net.hwyz.iov.cloud.mpt.gateway.captcha.CaptchaPool;
 import net.hwyz.iov.cloud.mpt.gateway.config.properties.CaptchaProperties;
 import net.hwyz.iov.cloud.mpt.gateway.exception.CaptchaException;
 import net.hwyz.iov.cloud.mpt.gateway.service.ValidateCodeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.util.FastByteArrayOutputStream;
+import reactor.core.publisher.Mono;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
 
 /**
  * 验证码实现处理
@@ -28,14 +27,11 @@ import java.util.concurrent.TimeUnit;
  */
 @Service
 public class ValidateCodeServiceImpl implements ValidateCodeService {
-    @Resource(name = "captchaProducer")
-    private Producer captchaProducer;
-
-    @Resource(name = "captchaProducerMath")
-    private Producer captchaProducerMath;
+    @Autowired
+    private CaptchaPool captchaPool;
 
     @Autowired
-    private RedisService redisService;
+    private ReactiveStringRedisTemplate reactiveStringRedisTemplate;
 
     @Autowired
     private CaptchaProperties captchaProperties;
@@ -44,63 +40,65 @@ public class ValidateCodeServiceImpl implements ValidateCodeService {
      * 生成验证码
      */
     @Override
-    public AjaxResult createCaptcha() throws IOException, CaptchaException {
+    public Mono<AjaxResult> createCaptcha() {
         AjaxResult ajax = AjaxResult.success();
         boolean captchaEnabled = captchaProperties.getEnabled();
         ajax.put("captchaEnabled", captchaEnabled);
         if (!captchaEnabled) {
-            return ajax;
+            return Mono.just(ajax);
         }
 
         // 保存验证码信息
         String uuid = IdUtil.simpleUUID();
-        String verifyKey = CacheConstants.CAPTCHA_CODE_KEY + uuid;
-
-        String capStr = null, code = null;
-        BufferedImage image = null;
-
-        String captchaType = captchaProperties.getType();
-        // 生成验证码
-        if ("math".equals(captchaType)) {
-            String capText = captchaProducerMath.createText();
-            capStr = capText.substring(0, capText.lastIndexOf("@"));
-            code = capText.substring(capText.lastIndexOf("@") + 1);
-            image = captchaProducerMath.createImage(capStr);
-        } else if ("char".equals(captchaType)) {
-            capStr = code = captchaProducer.createText();
-            image = captchaProducer.createImage(capStr);
-        }
+        // 从验证码池取出预生成的验证码
+        return captchaPool.take(captchaProperties.getType())
+                .flatMap(captcha -> {
+                    ajax.put("uuid", uuid);
+                    ajax.put("img", Base64.encode(captcha.getImage()));
+                    return saveCode(uuid, captcha).thenReturn(ajax);
+                })
+                .onErrorResume(IOException.class, e -> Mono.just(AjaxResult.error(e.getMessage())));
+    }
 
-        redisService.setCacheObject(verifyKey, code, Constants.CAPTCHA_EXPIRATION, TimeUnit.MINUTES);
-        // 转换流信息写出
-        FastByteArrayOutputStream os = new FastByteArrayOutputStream();
-        try {
-            ImageIO.write(image, "jpg", os);
-        } catch (IOException e) {
-            return AjaxResult.error(e.getMessage());
+    /**
+     * 生成验证码（二进制图片模式）
+     */
+    @Override
+    public Mono<CaptchaImage> createCaptchaImage() {
+        if (!captchaProperties.getEnabled()) {
+            return Mono.empty();
         }
+        String uuid = IdUtil.simpleUUID();
+        return captchaPool.take(captchaProperties.getType())
+                .flatMap(captcha -> saveCode(uuid, captcha).thenReturn(new CaptchaImage(uuid, captcha)));
+    }
 
-        ajax.put("uuid", uuid);
-        ajax.put("img", Base64.encode(os.toByteArray()));
-        return ajax;
+    /**
+     * 保存验证码答案
+     */
+    private Mono<Boolean> saveCode(String uuid, Captcha captcha) {
+        String verifyKey = CacheConstants.CAPTCHA_CODE_KEY + uuid;
+        return reactiveStringRedisTemplate.opsForValue()
+                .set(verifyKey, captcha.getCode(), Duration.ofMinutes(Constants.CAPTCHA_EXPIRATION));
     }
 
     /**
      * 校验验证码
      */
     @Override
-    public void checkCaptcha(String code, String uuid) throws CaptchaException {
+    public Mono<Void> checkCaptcha(String code, String uuid) {
         if (StrUtil.isEmpty(code)) {
-            throw new CaptchaException("验证码不能为空");
+            return Mono.error(new CaptchaException("验证码不能为空"));
         }
         String verifyKey = CacheConstants.CAPTCHA_CODE_KEY + StrUtil.nullToDefault(uuid, "");
-        String captcha = redisService.getCacheObject(verifyKey);
-        if (captcha == null) {
-            throw new CaptchaException("验证码已失效");
-        }
-        redisService.deleteObject(verifyKey);
-        if (!code.equalsIgnoreCase(captcha)) {
-            throw new CaptchaException("验证码错误");
-        }
+        // GETDEL原子取出并删除，避免并发请求重复使用同一验证码
+        return reactiveStringRedisTemplate.opsForValue().getAndDelete(verifyKey)
+                .switchIfEmpty(Mono.error(() -> new CaptchaException("验证码已失效")))
+                .flatMap(captcha -> {
+                    if (!code.equalsIgnoreCase(captcha)) {
+                        return Mono.error(new CaptchaException("验证码错误"));
+                    }
+                    return Mono.empty();
+                });
     }
 }
@@ -0,0 +1,68 @@
+package net.hwyz.iov.cloud.mpt.gateway.util;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 转发中的消息体复制
+ * <p>
+ * 逐块复制可读字节，不改变原缓冲的读位置，累计超过上限后放弃并不再复制
+ *
+ * @author hwyz_leo
+ */
+public class BodyCapture {
+    private final long limit;
+
+    private byte[] bytes = new byte[1024];
+
+    private int size;
+
+    private boolean overflow;
+
+    /**
+     * @param limit 复制上限（字节）
+     */
+    public BodyCapture(long limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * 复制一块数据
+     */
+    public void append(DataBuffer buffer) {
+        int length = buffer.readableByteCount();
+        if (overflow || size + (long) length > limit) {
+            overflow = true;
+            return;
+        }
+        if (size + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+        }
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                ByteBuffer byteBuffer = iterator.next();
+                int remaining = byteBuffer.remaining();
+                byteBuffer.get(bytes, size, remaining);
+                size += remaining;
+            }
+        }
+    }
+
+    /**
+     * 是否已超过上限
+     */
+    public boolean isOverflow() {
+        return overflow;
+    }
+
+    /**
+     * 复制的完整内容
+     *
+     * @return 超过上限时返回null
+     */
+    public byte[] toByteArray() {
+        return overflow ? null : Arrays.copyOf(bytes, size);
+    }
+}
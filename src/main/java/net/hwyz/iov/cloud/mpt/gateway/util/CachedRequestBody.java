@@ -0,0 +1,247 @@
+package net.hwyz.iov.cloud.mpt.gateway.util;
+
+import com.alibaba.fastjson2.JSONException;
+import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONReader;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * 单次请求内共享的已聚合请求体
+ * <p>
+ * 第一个需要读取请求体的过滤器负责聚合并保存到请求属性中，后续过滤器直接复用，
+ * 字符串与JSON字段等视图按需解码并缓存。完整请求体同时登记为 {@link ServerWebExchangeUtils#CACHED_REQUEST_BODY_ATTR}，
+ * 由网关的RemoveCachedBodyFilter在请求结束时统一释放
+ *
+ * @author hwyz_leo
+ */
+public class CachedRequestBody {
+    /**
+     * 请求属性名
+     */
+    public static final String ATTR = CachedRequestBody.class.getName();
+
+    /**
+     * 回放临时文件时的读取块大小
+     */
+    private static final int FILE_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * 完整请求体，请求体为空时为null
+     */
+    private final DataBuffer body;
+
+    /**
+     * 溢出到磁盘时的临时文件，由 {@link SpooledRequestBody} 在请求结束后删除
+     */
+    private final Path file;
+
+    private final long fileSize;
+
+    private final DataBufferFactory bufferFactory;
+
+    private String text;
+
+    private final JSONObject fields = new JSONObject();
+
+    private CachedRequestBody(DataBuffer body, Path file, long fileSize, DataBufferFactory bufferFactory) {
+        this.body = body;
+        this.file = file;
+        this.fileSize = fileSize;
+        this.bufferFactory = bufferFactory;
+    }
+
+    /**
+     * 内存中的请求体
+     *
+     * @param body 完整请求体，可为null
+     */
+    public static CachedRequestBody of(DataBuffer body) {
+        return new CachedRequestBody(body, null, 0, null);
+    }
+
+    /**
+     * 溢出到临时文件的请求体，回放时分块读取文件，不在内存中保留完整请求体
+     *
+     * @param file          临时文件
+     * @param size          请求体字节数
+     * @param bufferFactory 读取文件使用的缓冲工厂
+     */
+    public static CachedRequestBody ofFile(Path file, long size, DataBufferFactory bufferFactory) {
+        return new CachedRequestBody(null, file, size, bufferFactory);
+    }
+
+    /**
+     * 获取已缓存的请求体
+     *
+     * @return 未缓存时返回null
+     */
+    public static CachedRequestBody get(ServerWebExchange exchange) {
+        return exchange.getAttribute(ATTR);
+    }
+
+    /**
+     * 获取已缓存的请求体，未缓存时聚合请求体并缓存
+     *
+     * @param maxSize 请求体上限，超过时以DataBufferLimitException结束
+     */
+    public static Mono<CachedRequestBody> resolve(ServerWebExchange exchange, int maxSize) {
+        CachedRequestBody cached = get(exchange);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return DataBufferUtils.join(exchange.getRequest().getBody(), maxSize)
+                .map(CachedRequestBody::of)
+                .defaultIfEmpty(of(null))
+                .doOnNext(body -> body.bind(exchange));
+    }
+
+    /**
+     * 保存到请求属性中，替换并释放之前缓存的请求体
+     */
+    public void bind(ServerWebExchange exchange) {
+        CachedRequestBody previous = get(exchange);
+        exchange.getAttributes().put(ATTR, this);
+        if (body != null) {
+            exchange.getAttributes().put(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR, body);
+        } else {
+            exchange.getAttributes().remove(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR);
+        }
+        if (previous != null && previous != this && previous.body != null) {
+            DataBufferUtils.release(previous.body);
+        }
+    }
+
+    /**
+     * 以缓存的请求体替换原请求体，Content-Length与实际长度不一致时一并修正
+     */
+    public ServerWebExchange decorate(ServerWebExchange exchange) {
+        ServerHttpRequest request = new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return replay();
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                HttpHeaders headers = super.getHeaders();
+                if (headers.getContentLength() == size()) {
+                    return headers;
+                }
+                HttpHeaders httpHeaders = new HttpHeaders();
+                httpHeaders.putAll(headers);
+                httpHeaders.remove(HttpHeaders.TRANSFER_ENCODING);
+                httpHeaders.setContentLength(size());
+                return httpHeaders;
+            }
+        };
+        return exchange.mutate().request(request).build();
+    }
+
+    /**
+     * 回放请求体，可重复订阅，每次订阅得到独立的读索引
+     */
+    public Flux<DataBuffer> replay() {
+        return Flux.defer(() -> {
+            if (file != null) {
+                return DataBufferUtils.read(file, bufferFactory, FILE_CHUNK_SIZE)
+                        .subscribeOn(Schedulers.boundedElastic());
+            }
+            if (body == null) {
+                return Flux.empty();
+            }
+            if (body instanceof NettyDataBuffer nettyBody) {
+                return Flux.just(nettyBody.factory().wrap(nettyBody.getNativeBuffer().retainedSlice()));
+            }
+            return Flux.just(body);
+        });
+    }
+
+    /**
+     * 完整请求体，调用方不得修改读写位置或释放；溢出到临时文件的请求体返回null
+     */
+    public DataBuffer getBody() {
+        return body;
+    }
+
+    /**
+     * 请求体是否在内存中，只有内存中的请求体支持 {@link #getBody()}、{@link #asString()} 与 {@link #fields(String...)}
+     */
+    public boolean isInMemory() {
+        return file == null;
+    }
+
+    /**
+     * 请求体字节数
+     */
+    public int size() {
+        if (file != null) {
+            return (int) fileSize;
+        }
+        return body == null ? 0 : body.readableByteCount();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 请求体UTF-8字符串视图
+     */
+    public String asString() {
+        if (text == null) {
+            text = body == null ? "" : body.toString(body.readPosition(), body.readableByteCount(), StandardCharsets.UTF_8);
+        }
+        return text;
+    }
+
+    /**
+     * 读取JSON请求体中指定的顶层字段，字段都读到后立即停止，不构建完整对象
+     *
+     * @param names 字段名
+     * @return 字段值，非法JSON按字段缺失处理
+     */
+    public JSONObject fields(String... names) {
+        if (body == null || Arrays.stream(names).allMatch(fields::containsKey)) {
+            return fields;
+        }
+        int readPosition = body.readPosition();
+        try (JSONReader reader = JSONReader.of(body.asInputStream(), StandardCharsets.UTF_8)) {
+            if (reader.nextIfObjectStart()) {
+                int remaining = names.length;
+                while (remaining > 0 && !reader.nextIfObjectEnd()) {
+                    String name = reader.readFieldName();
+                    if (Arrays.asList(names).contains(name)) {
+                        fields.put(name, reader.readString());
+                        remaining--;
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+            }
+        } catch (JSONException e) {
+            // 非法JSON按字段缺失处理
+        } finally {
+            body.readPosition(readPosition);
+        }
+        // 记录已查找过的字段，避免重复扫描
+        for (String name : names) {
+            fields.putIfAbsent(name, null);
+        }
+        return fields;
+    }
+}
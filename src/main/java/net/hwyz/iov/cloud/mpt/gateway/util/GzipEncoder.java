@@ -0,0 +1,165 @@
+package net.hwyz.iov.cloud.mpt.gateway.util;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 流式gzip编码
+ * <p>
+ * 按数据块压缩，输入直接以ByteBuffer交给Deflater，输出直接写入缓冲工厂分配的（池化）缓冲，不经过中间数组。
+ * 各方法互斥执行：取消时 {@link #close()} 会等待进行中的压缩结束后再释放Deflater，关闭后的输入直接释放
+ *
+ * @author hwyz_leo
+ */
+public class GzipEncoder implements AutoCloseable {
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private static final int TRAILER_SIZE = 8;
+
+    /**
+     * 输出缓冲大小
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    private final DataBufferFactory bufferFactory;
+
+    private final Deflater deflater;
+
+    private final CRC32 crc = new CRC32();
+
+    private boolean headerWritten;
+
+    private boolean closed;
+
+    private long bytesIn;
+
+    private long bytesOut;
+
+    private long deflateNanos;
+
+    public GzipEncoder(DataBufferFactory bufferFactory, int level) {
+        this.bufferFactory = bufferFactory;
+        this.deflater = new Deflater(level, true);
+    }
+
+    /**
+     * 压缩一块数据，输入缓冲会被释放
+     *
+     * @return 产生的压缩数据，可能为空
+     */
+    public synchronized List<DataBuffer> encode(DataBuffer input) {
+        if (closed) {
+            DataBufferUtils.release(input);
+            return List.of();
+        }
+        List<DataBuffer> output = new ArrayList<>(2);
+        try {
+            writeHeader(output);
+            bytesIn += input.readableByteCount();
+            try (DataBuffer.ByteBufferIterator iterator = input.readableByteBuffers()) {
+                while (iterator.hasNext()) {
+                    ByteBuffer byteBuffer = iterator.next();
+                    crc.update(byteBuffer.duplicate());
+                    deflater.setInput(byteBuffer);
+                    while (!deflater.needsInput()) {
+                        deflate(output, Deflater.NO_FLUSH);
+                    }
+                }
+            }
+        } finally {
+            DataBufferUtils.release(input);
+        }
+        return output;
+    }
+
+    /**
+     * 结束压缩，输出剩余数据与gzip尾部
+     */
+    public synchronized List<DataBuffer> finish() {
+        if (closed) {
+            return List.of();
+        }
+        List<DataBuffer> output = new ArrayList<>(2);
+        writeHeader(output);
+        deflater.finish();
+        while (!deflater.finished()) {
+            deflate(output, Deflater.NO_FLUSH);
+        }
+        DataBuffer trailer = bufferFactory.allocateBuffer(TRAILER_SIZE);
+        writeIntLe(trailer, (int) crc.getValue());
+        writeIntLe(trailer, (int) bytesIn);
+        bytesOut += TRAILER_SIZE;
+        output.add(trailer);
+        return output;
+    }
+
+    private void writeHeader(List<DataBuffer> output) {
+        if (headerWritten) {
+            return;
+        }
+        headerWritten = true;
+        output.add(bufferFactory.allocateBuffer(HEADER.length).write(HEADER));
+        bytesOut += HEADER.length;
+    }
+
+    private void deflate(List<DataBuffer> output, int flush) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(CHUNK_SIZE);
+        long start = System.nanoTime();
+        int written;
+        try (DataBuffer.ByteBufferIterator iterator = buffer.writableByteBuffers()) {
+            written = deflater.deflate(iterator.next(), flush);
+        }
+        deflateNanos += System.nanoTime() - start;
+        if (written == 0) {
+            DataBufferUtils.release(buffer);
+            return;
+        }
+        buffer.writePosition(buffer.writePosition() + written);
+        bytesOut += written;
+        output.add(buffer);
+    }
+
+    private void writeIntLe(DataBuffer buffer, int value) {
+        buffer.write((byte) value);
+        buffer.write((byte) (value >> 8));
+        buffer.write((byte) (value >> 16));
+        buffer.write((byte) (value >> 24));
+    }
+
+    /**
+     * 未压缩字节数
+     */
+    public synchronized long getBytesIn() {
+        return bytesIn;
+    }
+
+    /**
+     * 压缩后字节数（含gzip头尾）
+     */
+    public synchronized long getBytesOut() {
+        return bytesOut;
+    }
+
+    /**
+     * 压缩耗时（纳秒）
+     */
+    public synchronized long getDeflateNanos() {
+        return deflateNanos;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        deflater.end();
+    }
+}
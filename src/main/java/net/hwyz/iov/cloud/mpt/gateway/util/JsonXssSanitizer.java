@@ -0,0 +1,209 @@
+package net.hwyz.iov.cloud.mpt.gateway.util;
+
+import net.hwyz.iov.cloud.framework.common.util.EscapeUtil;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.FastByteArrayOutputStream;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSON请求体流式XSS清洗
+ * <p>
+ * 按数据块增量处理，JSON结构字节原样输出，仅对字符串值调用 {@link EscapeUtil#clean(String)}。
+ * 字符串值以原始字节暂存，在字符串结束时才解码，跨数据块截断的UTF-8序列无需特殊处理；
+ * 单个字符串超过上限时在字符边界处分段清洗，每个请求占用的内存与请求体大小无关。
+ * 实例有状态，每个请求体使用一个新实例
+ *
+ * @author hwyz_leo
+ */
+public class JsonXssSanitizer {
+    /**
+     * 单段字符串暂存上限
+     */
+    private static final int MAX_PENDING_SIZE = 64 * 1024;
+
+    private static final byte QUOTE = '"';
+
+    private static final long ONES = 0x0101010101010101L;
+
+    private static final long HIGHS = 0x8080808080808080L;
+
+    /**
+     * 需要清洗的字节：EscapeUtil.clean只会改写包含标签（&lt; &gt;）或实体（&amp;）的内容
+     */
+    private static final long LT = ONES * '<';
+
+    private static final long GT = ONES * '>';
+
+    private static final long AMP = ONES * '&';
+
+    private static final byte BACKSLASH = '\\';
+
+    private final DataBufferFactory bufferFactory;
+
+    private final FastByteArrayOutputStream pending = new FastByteArrayOutputStream(256);
+
+    /**
+     * 当前是否位于字符串内
+     */
+    private boolean inString;
+
+    /**
+     * 上一个字节是否为转义符
+     */
+    private boolean escaped;
+
+    public JsonXssSanitizer(DataBufferFactory bufferFactory) {
+        this.bufferFactory = bufferFactory;
+    }
+
+    /**
+     * 请求体中是否存在需要清洗的字节
+     * <p>
+     * 按8字节一组做SWAR扫描，不产生任何复制与对象分配
+     *
+     * @param body 请求体
+     */
+    public static boolean needsSanitize(DataBuffer body) {
+        try (DataBuffer.ByteBufferIterator iterator = body.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                if (needsSanitize(iterator.next())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean needsSanitize(ByteBuffer buffer) {
+        int i = buffer.position();
+        int limit = buffer.limit();
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            long word = buffer.getLong(i);
+            if (hasByte(word, LT) || hasByte(word, GT) || hasByte(word, AMP)) {
+                return true;
+            }
+        }
+        for (; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == '<' || b == '>' || b == '&') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 8字节中是否存在与pattern相同的字节
+     */
+    private static boolean hasByte(long word, long pattern) {
+        long x = word ^ pattern;
+        return ((x - ONES) & ~x & HIGHS) != 0;
+    }
+
+    /**
+     * 清洗一个数据块，输入数据块会被释放
+     *
+     * @param chunk 数据块
+     * @return 清洗后的数据块
+     */
+    public DataBuffer sanitize(DataBuffer chunk) {
+        DataBuffer out = bufferFactory.allocateBuffer(chunk.readableByteCount());
+        try (DataBuffer.ByteBufferIterator iterator = chunk.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                sanitize(iterator.next(), out);
+            }
+        } finally {
+            DataBufferUtils.release(chunk);
+        }
+        return out;
+    }
+
+    /**
+     * 请求体结束，输出未闭合的字符串
+     *
+     * @return 剩余数据，无剩余数据时返回null
+     */
+    public DataBuffer finish() {
+        if (pending.size() == 0) {
+            return null;
+        }
+        DataBuffer out = bufferFactory.allocateBuffer(pending.size());
+        flushPending(out, pending.size());
+        return out;
+    }
+
+    private void sanitize(ByteBuffer buffer, DataBuffer out) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        // 字符串外连续字节的起始位置
+        int runStart = inString ? -1 : position;
+        for (int i = position; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (!inString) {
+                if (b == QUOTE) {
+                    inString = true;
+                    writeRange(buffer, runStart, i + 1, out);
+                    runStart = -1;
+                }
+                continue;
+            }
+            if (escaped) {
+                escaped = false;
+            } else if (b == BACKSLASH) {
+                escaped = true;
+            } else if (b == QUOTE) {
+                inString = false;
+                flushPending(out, pending.size());
+                runStart = i;
+                continue;
+            }
+            pending.write(b);
+            if (pending.size() >= MAX_PENDING_SIZE && !escaped) {
+                flushPending(out, charBoundary());
+            }
+        }
+        if (runStart >= 0) {
+            writeRange(buffer, runStart, limit, out);
+        }
+    }
+
+    private void writeRange(ByteBuffer buffer, int from, int to, DataBuffer out) {
+        if (to > from) {
+            out.write(buffer.duplicate().limit(to).position(from));
+        }
+    }
+
+    /**
+     * 清洗并输出暂存字符串的前length个字节
+     */
+    private void flushPending(DataBuffer out, int length) {
+        byte[] bytes = pending.toByteArrayUnsafe();
+        String value = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        out.write(EscapeUtil.clean(value).getBytes(StandardCharsets.UTF_8));
+        int remaining = pending.size() - length;
+        pending.reset();
+        if (remaining > 0) {
+            pending.write(bytes, length, remaining);
+        }
+    }
+
+    /**
+     * 暂存字节中最后一个完整UTF-8字符之后的位置
+     */
+    private int charBoundary() {
+        byte[] bytes = pending.toByteArrayUnsafe();
+        int end = pending.size();
+        int index = end - 1;
+        // 回退到最后一个字符的首字节
+        while (index > 0 && (bytes[index] & 0xC0) == 0x80) {
+            index--;
+        }
+        int lead = bytes[index] & 0xFF;
+        int length = lead < 0x80 ? 1 : lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : 2;
+        return index + length <= end ? end : index;
+    }
+}
@@ -0,0 +1,40 @@
+package net.hwyz.iov.cloud.mpt.gateway.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 日志限频
+ * <p>
+ * 每个间隔内只允许输出一条日志，其余只计数，下一条日志输出时带上期间被省略的条数
+ *
+ * @author hwyz_leo
+ */
+public class LogThrottle {
+    private final long interval;
+
+    private final AtomicLong next;
+
+    private final LongAdder suppressed = new LongAdder();
+
+    public LogThrottle(Duration interval) {
+        this.interval = interval.toNanos();
+        this.next = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * 尝试获取输出日志的机会
+     *
+     * @return 不允许输出时返回-1，否则返回上次输出以来被省略的条数
+     */
+    public long tryAcquire() {
+        long now = System.nanoTime();
+        long current = next.get();
+        if (now - current < 0 || !next.compareAndSet(current, now + interval)) {
+            suppressed.increment();
+            return -1;
+        }
+        return suppressed.sumThenReset();
+    }
+}
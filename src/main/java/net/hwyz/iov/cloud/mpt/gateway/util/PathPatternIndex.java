@@ -0,0 +1,160 @@
+package net.hwyz.iov.cloud.mpt.gateway.util;
+
+import cn.hutool.core.util.StrUtil;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ant风格路径匹配索引
+ * <p>
+ * 模式在配置绑定时一次性编译：不含通配符的模式走哈希精确匹配，其余模式按路径段组织成前缀树，
+ * 匹配时只对与路径段结构吻合的候选模式做最终校验，单次匹配耗时与模式总数基本无关。
+ * 匹配语义与 {@link AntPathMatcher#match(String, String)} 一致
+ *
+ * @author hwyz_leo
+ */
+public final class PathPatternIndex {
+    /**
+     * 空索引
+     */
+    public static final PathPatternIndex EMPTY = new PathPatternIndex(Collections.emptyList());
+
+    private static final String SEPARATOR = "/";
+
+    private static final String DEEP_WILDCARD = "**";
+
+    private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+    private final Set<String> literals = new HashSet<>();
+
+    private final Node root = new Node();
+
+    private final boolean empty;
+
+    private PathPatternIndex(Collection<String> patterns) {
+        for (String pattern : patterns) {
+            if (StrUtil.isEmpty(pattern)) {
+                continue;
+            }
+            if (!MATCHER.isPattern(pattern)) {
+                literals.add(pattern);
+            }
+            insert(pattern);
+        }
+        this.empty = literals.isEmpty() && root.isEmpty();
+    }
+
+    /**
+     * 编译路径模式
+     *
+     * @param patterns 路径模式
+     */
+    public static PathPatternIndex compile(Collection<String> patterns) {
+        if (patterns == null || patterns.isEmpty()) {
+            return EMPTY;
+        }
+        return new PathPatternIndex(patterns);
+    }
+
+    /**
+     * 路径是否匹配任一模式
+     *
+     * @param path 请求路径
+     */
+    public boolean matches(String path) {
+        if (empty || StrUtil.isEmpty(path)) {
+            return false;
+        }
+        if (literals.contains(path)) {
+            return true;
+        }
+        String[] segments = StringUtils.tokenizeToStringArray(path, SEPARATOR, false, true);
+        return matches(root, path, segments, 0);
+    }
+
+    private boolean matches(Node node, String path, String[] segments, int index) {
+        if (matchAny(node.deepPatterns, path)) {
+            return true;
+        }
+        if (index == segments.length) {
+            if (matchAny(node.terminalPatterns, path)) {
+                return true;
+            }
+            // 与AntPathMatcher一致，"/a/*"可匹配"/a/"
+            return node.wildcardChild != null && path.endsWith(SEPARATOR)
+                    && matchAny(node.wildcardChild.terminalPatterns, path);
+        }
+        Node literalChild = node.literalChildren.get(segments[index]);
+        if (literalChild != null && matches(literalChild, path, segments, index + 1)) {
+            return true;
+        }
+        return node.wildcardChild != null && matches(node.wildcardChild, path, segments, index + 1);
+    }
+
+    private boolean matchAny(List<String> patterns, String path) {
+        for (String pattern : patterns) {
+            if (MATCHER.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void insert(String pattern) {
+        Node node = root;
+        for (String segment : StringUtils.tokenizeToStringArray(pattern, SEPARATOR, false, true)) {
+            if (DEEP_WILDCARD.equals(segment)) {
+                node.deepPatterns.add(pattern);
+                return;
+            }
+            if (MATCHER.isPattern(segment)) {
+                if (node.wildcardChild == null) {
+                    node.wildcardChild = new Node();
+                }
+                node = node.wildcardChild;
+            } else {
+                node = node.literalChildren.computeIfAbsent(segment, key -> new Node());
+            }
+        }
+        node.terminalPatterns.add(pattern);
+    }
+
+    /**
+     * 前缀树节点
+     */
+    private static final class Node {
+        /**
+         * 字面量路径段子节点
+         */
+        private final Map<String, Node> literalChildren = new HashMap<>();
+
+        /**
+         * 单段通配（*、?、{var}等）子节点
+         */
+        private Node wildcardChild;
+
+        /**
+         * 剩余部分以**开头的模式
+         */
+        private final List<String> deepPatterns = new ArrayList<>();
+
+        /**
+         * 在此节点结束的模式
+         */
+        private final List<String> terminalPatterns = new ArrayList<>();
+
+        private boolean isEmpty() {
+            return literalChildren.isEmpty() && wildcardChild == null
+                    && deepPatterns.isEmpty() && terminalPatterns.isEmpty();
+        }
+    }
+}
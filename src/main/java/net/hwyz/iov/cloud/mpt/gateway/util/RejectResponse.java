@@ -0,0 +1,112 @@
+package net.hwyz.iov.cloud.mpt.gateway.util;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 预编码的拒绝响应
+ * <p>
+ * 响应体与ServletUtil.webFluxResponseWriter一致（{"code":..,"msg":..}），创建时编码一次并保存在只读、不可释放的直接内存中，
+ * 每次写出只复制缓冲索引，不再序列化JSON或分配响应体内存。只用于固定的提示信息（常量），
+ * 内容随请求变化的提示信息使用 {@link #writeMessage(ServerHttpResponse, String)} 在堆内编码且不缓存
+ *
+ * @author hwyz_leo
+ */
+public final class RejectResponse {
+    /**
+     * 默认失败码，与ServletUtil一致
+     */
+    public static final int FAIL = 500;
+
+    private final HttpStatus status;
+
+    private final byte[] bytes;
+
+    private final ByteBuf payload;
+
+    private RejectResponse(HttpStatus status, int code, String msg) {
+        this.status = status;
+        this.bytes = encode(code, msg);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        this.payload = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(direct).asReadOnly());
+    }
+
+    /**
+     * 失败码为500的拒绝响应
+     *
+     * @param msg 提示信息
+     */
+    public static RejectResponse of(String msg) {
+        return of(msg, FAIL);
+    }
+
+    /**
+     * 指定失败码的拒绝响应
+     *
+     * @param msg  提示信息
+     * @param code 失败码
+     */
+    public static RejectResponse of(String msg, int code) {
+        return new RejectResponse(HttpStatus.OK, code, msg);
+    }
+
+    /**
+     * 以指定HTTP状态码返回的拒绝响应，失败码与状态码一致，用于需要客户端或代理按状态码处理的场景（如429、413）
+     *
+     * @param msg    提示信息
+     * @param status HTTP状态码
+     */
+    public static RejectResponse withStatus(String msg, HttpStatus status) {
+        return new RejectResponse(status, status.value(), msg);
+    }
+
+    /**
+     * 写出内容随请求变化的拒绝响应，失败码为500，响应体在堆内编码，不缓存也不占用直接内存
+     *
+     * @param response 响应
+     * @param msg      提示信息
+     */
+    public static Mono<Void> writeMessage(ServerHttpResponse response, String msg) {
+        byte[] bytes = encode(FAIL, msg);
+        prepare(response, HttpStatus.OK, bytes.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+    }
+
+    private static byte[] encode(int code, String msg) {
+        JSONObject result = new JSONObject();
+        result.put("code", code);
+        result.put("msg", msg);
+        return JSON.toJSONBytes(result);
+    }
+
+    private static void prepare(ServerHttpResponse response, HttpStatus status, int length) {
+        response.setStatusCode(status);
+        HttpHeaders headers = response.getHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setContentLength(length);
+    }
+
+    /**
+     * 写出响应
+     */
+    public Mono<Void> write(ServerHttpResponse response) {
+        prepare(response, status, bytes.length);
+        DataBufferFactory bufferFactory = response.bufferFactory();
+        DataBuffer buffer = bufferFactory instanceof NettyDataBufferFactory nettyBufferFactory
+                ? nettyBufferFactory.wrap(payload.duplicate())
+                : bufferFactory.wrap(bytes);
+        return response.writeWith(Mono.just(buffer));
+    }
+}
@@ -0,0 +1,164 @@
+package net.hwyz.iov.cloud.mpt.gateway.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 可溢出到磁盘的请求体缓存
+ * <p>
+ * 请求体不超过内存阈值时以池化缓冲（组合缓冲，不复制）保存在内存中；超过阈值后异步写入临时文件，
+ * 写完后回放时分块读取文件，不在内存中保留完整请求体。超过上限时以 {@link DataBufferLimitException} 结束。
+ * 创建、关闭与删除临时文件等阻塞的文件操作均在 {@link Schedulers#boundedElastic()} 上执行，不占用事件循环线程。
+ * 临时文件在请求结束后由 {@link #cleanup()} 删除，不使用内存映射，删除后磁盘空间立即释放
+ *
+ * @author hwyz_leo
+ */
+@Slf4j
+public class SpooledRequestBody {
+    private final DataBufferFactory bufferFactory;
+
+    private final long memoryThreshold;
+
+    private final long maxSize;
+
+    private final List<DataBuffer> buffers = new ArrayList<>();
+
+    private long size;
+
+    private long spilledSize;
+
+    private Path file;
+
+    private AsynchronousFileChannel channel;
+
+    public SpooledRequestBody(DataBufferFactory bufferFactory, long memoryThreshold, long maxSize) {
+        this.bufferFactory = bufferFactory;
+        this.memoryThreshold = memoryThreshold;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 读取并缓存请求体
+     *
+     * @param source 原始请求体
+     * @return 缓存后的完整请求体
+     */
+    public Mono<CachedRequestBody> spool(Flux<DataBuffer> source) {
+        return source.concatMap(this::add)
+                .then(Mono.defer(() -> channel == null
+                        ? Mono.fromCallable(this::complete)
+                        : Mono.fromCallable(this::complete).subscribeOn(Schedulers.boundedElastic())))
+                .doOnError(e -> discard())
+                .doOnCancel(this::discard);
+    }
+
+    /**
+     * 是否已溢出到磁盘
+     */
+    public boolean isSpilled() {
+        return file != null;
+    }
+
+    /**
+     * 异步删除临时文件，内存中的请求体由持有者释放
+     */
+    public void cleanup() {
+        Path target = file;
+        if (target == null) {
+            return;
+        }
+        Schedulers.boundedElastic().schedule(() -> delete(target));
+    }
+
+    private static void delete(Path target) {
+        try {
+            Files.deleteIfExists(target);
+        } catch (IOException e) {
+            logger.warn("请求体临时文件[{}]删除失败", target, e);
+        }
+    }
+
+    private Mono<Void> add(DataBuffer buffer) {
+        size += buffer.readableByteCount();
+        if (size > maxSize) {
+            DataBufferUtils.release(buffer);
+            return Mono.error(new DataBufferLimitException("请求体超过上限：" + maxSize));
+        }
+        if (channel == null && size <= memoryThreshold) {
+            buffers.add(buffer);
+            return Mono.empty();
+        }
+        List<DataBuffer> pending = new ArrayList<>(buffers);
+        pending.add(buffer);
+        buffers.clear();
+        long position = spilledSize;
+        spilledSize = size;
+        Mono<Void> write = Mono.defer(() -> DataBufferUtils.write(Flux.fromIterable(pending), channel, position)
+                .doOnNext(DataBufferUtils::release)
+                .then());
+        if (channel != null) {
+            return write;
+        }
+        return Mono.fromRunnable(this::openSpillFile)
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnError(e -> pending.forEach(DataBufferUtils::release))
+                .doOnCancel(() -> pending.forEach(DataBufferUtils::release))
+                .then(write);
+    }
+
+    private void openSpillFile() {
+        try {
+            file = Files.createTempFile("gateway-body-", ".tmp");
+            channel = AsynchronousFileChannel.open(file, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    private CachedRequestBody complete() throws IOException {
+        if (channel == null) {
+            DataBuffer body = buffers.isEmpty() ? null : bufferFactory.join(new ArrayList<>(buffers));
+            buffers.clear();
+            return CachedRequestBody.of(body);
+        }
+        channel.close();
+        return CachedRequestBody.ofFile(file, size, bufferFactory);
+    }
+
+    private void discard() {
+        buffers.forEach(DataBufferUtils::release);
+        buffers.clear();
+        AsynchronousFileChannel target = channel;
+        Path targetFile = file;
+        if (target == null && targetFile == null) {
+            return;
+        }
+        Schedulers.boundedElastic().schedule(() -> {
+            if (target != null) {
+                try {
+                    target.close();
+                } catch (IOException e) {
+                    logger.debug("请求体临时文件关闭失败", e);
+                }
+            }
+            if (targetFile != null) {
+                delete(targetFile);
+            }
+        });
+    }
+}
@@ -25,7 +25,9 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @ConfigurationProperties("spring.cloud.gateway.httpclient")
 @Validated
@@ -35,9 +37,11 @@ public class HttpClientProperties {
     private DataSize maxHeaderSize;
     private DataSize maxInitialLineLength;
     private Pool pool = new Pool();
+    private Map<String, Pool> pools = new LinkedHashMap<>();
     private Proxy proxy = new Proxy();
     private Ssl ssl = new Ssl();
     private Websocket websocket = new Websocket();
+    private Http2 http2 = new Http2();
     private boolean wiretap;
     private boolean compression;
 
@@ -84,6 +88,14 @@ public class HttpClientProperties {
         this.pool = pool;
     }
 
+    public Map<String, Pool> getPools() {
+        return this.pools;
+    }
+
+    public void setPools(Map<String, Pool> pools) {
+        this.pools = pools;
+    }
+
     public Proxy getProxy() {
         return this.proxy;
     }
@@ -108,6 +120,14 @@ public class HttpClientProperties {
         this.websocket = websocket;
     }
 
+    public Http2 getHttp2() {
+        return this.http2;
+    }
+
+    public void setHttp2(Http2 http2) {
+        this.http2 = http2;
+    }
+
     public boolean isWiretap() {
         return this.wiretap;
     }
@@ -125,7 +145,7 @@ public class HttpClientProperties {
     }
 
     public String toString() {
-        return (new ToStringCreator(this)).append("connectTimeout", this.connectTimeout).append("responseTimeout", this.responseTimeout).append("maxHeaderSize", this.maxHeaderSize).append("maxInitialLineLength", this.maxInitialLineLength).append("pool", this.pool).append("proxy", this.proxy).append("ssl", this.ssl).append("websocket", this.websocket).append("wiretap", this.wiretap).append("compression", this.compression).toString();
+        return (new ToStringCreator(this)).append("connectTimeout", this.connectTimeout).append("responseTimeout", this.responseTimeout).append("maxHeaderSize", this.maxHeaderSize).append("maxInitialLineLength", this.maxInitialLineLength).append("pool", this.pool).append("pools", this.pools).append("proxy", this.proxy).append("ssl", this.ssl).append("websocket", this.websocket).append("http2", this.http2).append("wiretap", this.wiretap).append("compression", this.compression).toString();
     }
 
     public static class Pool {
@@ -503,4 +523,60 @@ public class HttpClientProperties {
             return (new ToStringCreator(this)).append("maxFramePayloadLength", this.maxFramePayloadLength).append("proxyPing", this.proxyPing).toString();
         }
     }
+
+    /**
+     * 上游HTTP/2配置
+     * <p>
+     * 启用后明文连接以h2c升级、TLS连接以ALPN协商HTTP/2，上游不支持时自动回退HTTP/1.1；
+     * 路由可通过元数据http2: true/false单独开启或关闭
+     */
+    public static class Http2 {
+        private boolean enabled;
+        private Integer maxConcurrentStreams;
+        private Integer minConnections;
+        private Integer maxConnections;
+
+        public Http2() {
+            this.enabled = false;
+            this.maxConcurrentStreams = 100;
+            this.minConnections = 1;
+            this.maxConnections = null;
+        }
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getMaxConcurrentStreams() {
+            return this.maxConcurrentStreams;
+        }
+
+        public void setMaxConcurrentStreams(Integer maxConcurrentStreams) {
+            this.maxConcurrentStreams = maxConcurrentStreams;
+        }
+
+        public Integer getMinConnections() {
+            return this.minConnections;
+        }
+
+        public void setMinConnections(Integer minConnections) {
+            this.minConnections = minConnections;
+        }
+
+        public Integer getMaxConnections() {
+            return this.maxConnections;
+        }
+
+        public void setMaxConnections(Integer maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public String toString() {
+            return (new ToStringCreator(this)).append("enabled", this.enabled).append("maxConcurrentStreams", this.maxConcurrentStreams).append("minConnections", this.minConnections).append("maxConnections", this.maxConnections).toString();
+        }
+    }
 }